@@ -1,5 +1,6 @@
 package com.MediConnect.MediConnect.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import java.util.List;
 
@@ -21,6 +22,10 @@ public class DispensaryDTO {
     private Integer totalReviews;
     private List<DoctorSummary> availableDoctors;
 
+    // Only set on location searches
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double distanceKm;
+
     @Data
     public static class DoctorSummary {
         private String id;
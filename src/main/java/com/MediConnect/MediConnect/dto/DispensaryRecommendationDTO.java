@@ -0,0 +1,13 @@
+package com.MediConnect.MediConnect.dto;
+
+import lombok.Data;
+
+@Data
+public class DispensaryRecommendationDTO {
+    private DispensaryDTO dispensary;
+    private boolean openNow;
+    private int availableDoctors;
+    private int estimatedTravelMinutes;
+    private Integer estimatedWaitMinutes; // null when no doctor is on duty
+    private int estimatedTotalMinutes;
+}
@@ -0,0 +1,33 @@
+package com.MediConnect.MediConnect.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class MedicalRecordSearchResultDTO {
+    private String query;
+    private int page;
+    private int size;
+    private long total;
+    private List<HitDTO> hits;
+
+    @Data
+    public static class HitDTO {
+        private String recordId;
+        private LocalDateTime visitDate;
+        private String doctorId;
+        private String doctorName;
+        private String diagnosis;
+        private Float score;
+        private List<SnippetDTO> snippets;
+    }
+
+    @Data
+    public static class SnippetDTO {
+        private String field; // chiefComplaint, symptoms, diagnosis, notes, medicationName or labTests
+        private String text;
+        private List<int[]> highlights; // [start, end) character offsets of matched words in text
+    }
+}
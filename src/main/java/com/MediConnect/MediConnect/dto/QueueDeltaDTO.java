@@ -0,0 +1,22 @@
+package com.MediConnect.MediConnect.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Changes taking a dispensary queue from fromSequence to sequence. A client holding another
+ * sequence or epoch has missed something and must fetch a new snapshot.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueDeltaDTO {
+    private String dispensaryId;
+    private String epoch;
+    private long fromSequence;
+    private long sequence;
+    private List<QueueOpDTO> ops;
+}
@@ -0,0 +1,30 @@
+package com.MediConnect.MediConnect.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One edit of a dispensary queue, applied in order:
+ * INSERT entry at index, REMOVE id, MOVE id to index, STATUS of id, UPDATE id with entry.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class QueueOpDTO {
+    private Type op;
+    private String id;
+    private Integer index;
+    private String status;
+    private QueueEntryDTO entry;
+
+    public enum Type {
+        INSERT,
+        REMOVE,
+        MOVE,
+        STATUS,
+        UPDATE
+    }
+}
@@ -0,0 +1,18 @@
+package com.MediConnect.MediConnect.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A patient's place in a dispensary queue, pushed to that patient only when it changes
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueuePositionDTO {
+    private String entryId;
+    private String dispensaryId;
+    private int position;
+    private int estimatedWaitTime;
+}
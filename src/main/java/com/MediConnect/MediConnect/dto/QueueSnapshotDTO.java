@@ -0,0 +1,17 @@
+package com.MediConnect.MediConnect.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueSnapshotDTO {
+    private String dispensaryId;
+    private String epoch;
+    private long sequence;
+    private List<QueueEntryDTO> entries;
+}
@@ -0,0 +1,14 @@
+package com.MediConnect.MediConnect.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHitDTO {
+    private String id;
+    private String name;
+    private double score;
+}
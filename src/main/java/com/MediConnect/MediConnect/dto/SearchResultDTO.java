@@ -0,0 +1,15 @@
+package com.MediConnect.MediConnect.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class SearchResultDTO {
+    private String type;
+    private String query;
+    private int total;
+    private List<SearchHitDTO> hits;
+    private Map<String, Map<String, Integer>> facets; // facet -> value -> matching documents
+}
@@ -0,0 +1,17 @@
+package com.MediConnect.MediConnect.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+    private String text;
+    private String type; // dispensary, doctor, city or specialization
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String id; // null for cities and specializations
+}
@@ -3,9 +3,11 @@ package com.MediConnect;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.scheduling.annotation.EnableAsync;
 
 @SpringBootApplication
 @EnableMongoAuditing
+@EnableAsync
 public class MediconnectApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(MediconnectApplication.class, args);
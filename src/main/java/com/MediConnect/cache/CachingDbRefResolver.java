@@ -0,0 +1,69 @@
+package com.MediConnect.cache;
+
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.DefaultDbRefResolver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves @DBRef targets in cached collections from the {@link DocumentCache}, so mapping a
+ * queue entry or medical record no longer re-reads its dispensary and doctor every time.
+ */
+public class CachingDbRefResolver extends DefaultDbRefResolver {
+
+    private final DocumentCache documentCache;
+
+    public CachingDbRefResolver(MongoDatabaseFactory mongoDbFactory, DocumentCache documentCache) {
+        super(mongoDbFactory);
+        this.documentCache = documentCache;
+    }
+
+    @Override
+    public Document fetch(DBRef dbRef) {
+        if (!documentCache.isCached(dbRef.getCollectionName())) {
+            return super.fetch(dbRef);
+        }
+        return documentCache.get(dbRef.getCollectionName(), dbRef.getId(), () -> super.fetch(dbRef));
+    }
+
+    @Override
+    public List<Document> bulkFetch(List<DBRef> refs) {
+        if (refs.isEmpty() || !documentCache.isCached(refs.get(0).getCollectionName())) {
+            return super.bulkFetch(refs);
+        }
+
+        String collection = refs.get(0).getCollectionName();
+        Map<Object, Document> found = new HashMap<>();
+        List<DBRef> misses = new ArrayList<>();
+        for (DBRef ref : refs) {
+            Document cached = documentCache.getIfPresent(collection, ref.getId());
+            if (cached != null) {
+                found.put(ref.getId(), cached);
+            } else {
+                misses.add(ref);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            for (Document document : super.bulkFetch(misses)) {
+                Object id = document.get("_id");
+                found.put(id, documentCache.putIfAbsent(collection, id, document));
+            }
+        }
+
+        // Same contract as the default resolver: documents in reference order, missing ones skipped
+        List<Document> result = new ArrayList<>(refs.size());
+        for (DBRef ref : refs) {
+            Document document = found.get(ref.getId());
+            if (document != null) {
+                result.add(document);
+            }
+        }
+        return result;
+    }
+}
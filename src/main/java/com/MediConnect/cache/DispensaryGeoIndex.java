@@ -0,0 +1,315 @@
+package com.MediConnect.cache;
+
+import com.MediConnect.events.EntityChangedEvent;
+import com.MediConnect.models.Dispensary;
+import com.MediConnect.utils.GeoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory grid index over dispensary locations for radius and k-nearest searches.
+ *
+ * The world is cut into square cells of mediconnect.geo-index.cell-degrees; each occupied cell keeps its
+ * points in primitive arrays, replaced copy-on-write so searches never lock. A radius search scans only
+ * the cells overlapping the search box and computes exact great-circle distances; a k-nearest search widens
+ * the radius until it holds k points. Saves and deletes move
+ * single points between cells; other nodes' writes arrive as {@link EntityChangedEvent}s. Changes made while
+ * the index is loading are re-read once the load finishes, since the load may have read an older copy.
+ *
+ * Searches return empty while the index is disabled or could not be loaded, and callers fall back to Mongo.
+ */
+@Component
+@Slf4j
+public class DispensaryGeoIndex extends AbstractMongoEventListener<Dispensary> {
+
+    private static final String LOCATION = "location";
+
+    public record Hit(String id, double distanceKm) {
+    }
+
+    private record Position(long cell, double latitude, double longitude) {
+    }
+
+    private record Cell(String[] ids, double[] latitudes, double[] longitudes) {
+
+        static final Cell EMPTY = new Cell(new String[0], new double[0], new double[0]);
+
+        Cell with(String id, double latitude, double longitude) {
+            int size = ids.length;
+            String[] newIds = Arrays.copyOf(ids, size + 1);
+            double[] newLatitudes = Arrays.copyOf(latitudes, size + 1);
+            double[] newLongitudes = Arrays.copyOf(longitudes, size + 1);
+            newIds[size] = id;
+            newLatitudes[size] = latitude;
+            newLongitudes[size] = longitude;
+            return new Cell(newIds, newLatitudes, newLongitudes);
+        }
+
+        Cell without(String id) {
+            int index = Arrays.asList(ids).indexOf(id);
+            if (index < 0) {
+                return this;
+            }
+            int size = ids.length - 1;
+            String[] newIds = new String[size];
+            double[] newLatitudes = new double[size];
+            double[] newLongitudes = new double[size];
+            System.arraycopy(ids, 0, newIds, 0, index);
+            System.arraycopy(ids, index + 1, newIds, index, size - index);
+            System.arraycopy(latitudes, 0, newLatitudes, 0, index);
+            System.arraycopy(latitudes, index + 1, newLatitudes, index, size - index);
+            System.arraycopy(longitudes, 0, newLongitudes, 0, index);
+            System.arraycopy(longitudes, index + 1, newLongitudes, index, size - index);
+            return new Cell(newIds, newLatitudes, newLongitudes);
+        }
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final double cellDegrees;
+    private final int rows;
+    private final int columns;
+
+    private final Map<Long, Cell> cells = new ConcurrentHashMap<>();
+    private final Map<String, Position> positions = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    private volatile boolean loading;
+    private final Set<String> changedWhileLoading = ConcurrentHashMap.newKeySet();
+
+    public DispensaryGeoIndex(MongoTemplate mongoTemplate,
+                              @Value("${mediconnect.geo-index.enabled:true}") boolean enabled,
+                              @Value("${mediconnect.geo-index.cell-degrees:0.05}") double cellDegrees) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.cellDegrees = cellDegrees;
+        this.rows = (int) Math.ceil(180.0 / cellDegrees);
+        this.columns = (int) Math.ceil(360.0 / cellDegrees);
+    }
+
+    /**
+     * Dispensaries within radiusKm, nearest first, at most limit of them (all if limit is null)
+     */
+    public Optional<List<Hit>> withinRadius(double latitude, double longitude, double radiusKm, Integer limit) {
+        if (!ensureLoaded()) {
+            return Optional.empty();
+        }
+
+        double latitudeSpan = radiusKm / GeoUtils.KM_PER_DEGREE_LATITUDE;
+        double longitudeSpan = GeoUtils.longitudeSpan(latitude, radiusKm);
+        int firstRow = row(Math.max(-90.0, latitude - latitudeSpan));
+        int lastRow = row(Math.min(90.0, latitude + latitudeSpan));
+        int firstColumn = column(longitude - longitudeSpan);
+        // Columns are not wrapped here, so a box across the antimeridian is still one contiguous range
+        int columnCount = Math.min(columns, column(longitude + longitudeSpan) - firstColumn + 1);
+
+        List<Hit> hits = new ArrayList<>();
+        long candidateCells = (long) (lastRow - firstRow + 1) * columnCount;
+        if (candidateCells > cells.size()) {
+            // Wide search over a sparse index: cheaper to visit every occupied cell
+            cells.values().forEach(cell -> collect(cell, latitude, longitude, radiusKm, hits));
+        } else {
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int offset = 0; offset < columnCount; offset++) {
+                    Cell cell = cells.get(key(row, Math.floorMod(firstColumn + offset, columns)));
+                    if (cell != null) {
+                        collect(cell, latitude, longitude, radiusKm, hits);
+                    }
+                }
+            }
+        }
+
+        hits.sort(Comparator.comparingDouble(Hit::distanceKm));
+        return Optional.of(limit != null && hits.size() > limit ? List.copyOf(hits.subList(0, limit)) : hits);
+    }
+
+    /**
+     * The k dispensaries nearest to the point, no further than maxRadiusKm
+     */
+    public Optional<List<Hit>> nearest(double latitude, double longitude, int k, double maxRadiusKm) {
+        double radiusKm = Math.min(maxRadiusKm, cellDegrees * GeoUtils.KM_PER_DEGREE_LATITUDE);
+        while (true) {
+            Optional<List<Hit>> hits = withinRadius(latitude, longitude, radiusKm, k);
+            if (hits.isEmpty() || hits.get().size() >= k || radiusKm >= maxRadiusKm) {
+                return hits;
+            }
+            radiusKm = Math.min(maxRadiusKm, radiusKm * 4);
+        }
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Dispensary> event) {
+        Dispensary dispensary = event.getSource();
+        changed(dispensary.getId(), () -> update(dispensary.getId(), dispensary.getLocation()));
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Dispensary> event) {
+        Object id = event.getSource().get("_id");
+        if (id != null) {
+            String dispensaryId = id instanceof ObjectId objectId ? objectId.toHexString() : id.toString();
+            changed(dispensaryId, () -> update(dispensaryId, null));
+        }
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.type() != EntityChangedEvent.EntityType.DISPENSARY) {
+            return;
+        }
+        if (event.isInvalidateAll()) {
+            synchronized (this) {
+                loaded = false;
+            }
+        } else if (event.changeType() == EntityChangedEvent.ChangeType.DELETE) {
+            changed(event.id(), () -> update(event.id(), null));
+        } else {
+            changed(event.id(), () -> {
+                Query query = locationQuery().addCriteria(Criteria.where("_id").is(toStoredId(event.id())));
+                Dispensary dispensary = mongoTemplate.findOne(query, Dispensary.class);
+                update(event.id(), dispensary != null ? dispensary.getLocation() : null);
+            });
+        }
+    }
+
+    /**
+     * Apply a change to a loaded index, and remember it if a load is running so it is re-read afterwards.
+     * loading is checked first: a load sets loaded before clearing loading, so no change falls in between.
+     */
+    private void changed(String id, Runnable apply) {
+        if (id == null) {
+            return;
+        }
+        if (loading) {
+            changedWhileLoading.add(id);
+        }
+        if (loaded) {
+            apply.run();
+        }
+    }
+
+    private boolean ensureLoaded() {
+        if (!enabled) {
+            return false;
+        }
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    loading = true;
+                    try {
+                        cells.clear();
+                        positions.clear();
+                        List<Dispensary> dispensaries = mongoTemplate.find(locationQuery(), Dispensary.class);
+                        dispensaries.forEach(dispensary -> update(dispensary.getId(), dispensary.getLocation()));
+                        loaded = true;
+                        log.info("Indexed locations of {} dispensaries in {} cells", positions.size(), cells.size());
+                    } catch (RuntimeException ex) {
+                        log.warn("Could not load the dispensary geo index, using Mongo geo queries", ex);
+                    } finally {
+                        loading = false;
+                    }
+                    if (loaded) {
+                        replayChangedWhileLoading();
+                    } else {
+                        changedWhileLoading.clear();
+                    }
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private void replayChangedWhileLoading() {
+        List<String> ids = new ArrayList<>(changedWhileLoading);
+        if (ids.isEmpty()) {
+            return;
+        }
+        changedWhileLoading.removeAll(ids);
+        try {
+            Query query = locationQuery().addCriteria(Criteria.where("_id")
+                    .in(ids.stream().map(DispensaryGeoIndex::toStoredId).toList()));
+            Map<String, GeoJsonPoint> locations = new HashMap<>();
+            for (Dispensary dispensary : mongoTemplate.find(query, Dispensary.class)) {
+                if (dispensary.getLocation() != null) {
+                    locations.put(dispensary.getId(), dispensary.getLocation());
+                }
+            }
+            ids.forEach(id -> update(id, locations.get(id)));
+        } catch (RuntimeException ex) {
+            log.warn("Could not re-read dispensaries changed while loading the geo index, reloading later", ex);
+            loaded = false;
+        }
+    }
+
+    /**
+     * Move a dispensary to its new location, or drop it when location is null
+     */
+    private synchronized void update(String id, GeoJsonPoint location) {
+        if (id == null) {
+            return;
+        }
+        Position previous = positions.remove(id);
+        if (previous != null) {
+            cells.computeIfPresent(previous.cell(), (key, cell) -> {
+                Cell remaining = cell.without(id);
+                return remaining.ids().length == 0 ? null : remaining;
+            });
+        }
+
+        if (location == null) {
+            return;
+        }
+        double longitude = location.getX();
+        double latitude = location.getY();
+        long cell = key(row(latitude), column(longitude));
+        positions.put(id, new Position(cell, latitude, longitude));
+        cells.compute(cell, (key, existing) -> (existing != null ? existing : Cell.EMPTY).with(id, latitude, longitude));
+    }
+
+    private static void collect(Cell cell, double latitude, double longitude, double radiusKm, List<Hit> hits) {
+        String[] ids = cell.ids();
+        double[] latitudes = cell.latitudes();
+        double[] longitudes = cell.longitudes();
+        for (int i = 0; i < ids.length; i++) {
+            double distance = GeoUtils.distanceKm(latitude, longitude, latitudes[i], longitudes[i]);
+            if (distance <= radiusKm) {
+                hits.add(new Hit(ids[i], distance));
+            }
+        }
+    }
+
+    private int row(double latitude) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor((latitude + 90.0) / cellDegrees)));
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor((longitude + 180.0) / cellDegrees);
+    }
+
+    private long key(int row, int column) {
+        return ((long) row << 32) | Math.floorMod(column, columns);
+    }
+
+    private static Query locationQuery() {
+        Query query = new Query();
+        query.fields().include(LOCATION);
+        return query;
+    }
+
+    // String ids that look like ObjectIds are stored as ObjectIds by the mapping layer
+    private static Object toStoredId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
@@ -0,0 +1,100 @@
+package com.MediConnect.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-evicted cache of raw Mongo documents for the small, read-heavy collections.
+ * Raw documents are cached rather than entities so every read maps a fresh, unshared
+ * object and a doctor change never has to cascade into the dispensaries that reference it.
+ *
+ * Metrics are published as cache.gets / cache.puts / cache.evictions with cache=entity.{collection}.
+ */
+@Component
+public class DocumentCache {
+
+    public static final String DISPENSARIES = "dispensaries";
+    public static final String DOCTORS = "doctors";
+
+    private final Map<String, Cache<String, Document>> caches = new HashMap<>();
+
+    public DocumentCache(@Value("${mediconnect.cache.entity.maximum-size:2000}") long maximumSize,
+                         @Value("${mediconnect.cache.entity.expire-after-write:10m}") Duration expireAfterWrite,
+                         MeterRegistry meterRegistry) {
+        for (String collection : Set.of(DISPENSARIES, DOCTORS)) {
+            Cache<String, Document> cache = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(expireAfterWrite)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "entity." + collection);
+            caches.put(collection, cache);
+        }
+    }
+
+    public boolean isCached(String collection) {
+        return caches.containsKey(collection);
+    }
+
+    /**
+     * Cached document, loading it on a miss. Missing documents are not cached.
+     */
+    public Document get(String collection, Object id, Supplier<Document> loader) {
+        return caches.get(collection).get(key(id), k -> loader.get());
+    }
+
+    public Document getIfPresent(String collection, Object id) {
+        return caches.get(collection).getIfPresent(key(id));
+    }
+
+    public void put(String collection, Object id, Document document) {
+        Cache<String, Document> cache = caches.get(collection);
+        if (cache != null && id != null && document != null) {
+            cache.put(key(id), document);
+        }
+    }
+
+    /**
+     * Cache a document read outside the loader (bulk reads) unless an entry already exists, so a
+     * write-through that landed after the read is never replaced by the older copy.
+     * Returns the document now cached for the id.
+     */
+    public Document putIfAbsent(String collection, Object id, Document document) {
+        Cache<String, Document> cache = caches.get(collection);
+        if (cache == null || id == null || document == null) {
+            return document;
+        }
+        Document existing = cache.asMap().putIfAbsent(key(id), document);
+        return existing != null ? existing : document;
+    }
+
+    public void evict(String collection, Object id) {
+        Cache<String, Document> cache = caches.get(collection);
+        if (cache != null && id != null) {
+            cache.invalidate(key(id));
+        }
+    }
+
+    public void evictAll(String collection) {
+        Cache<String, Document> cache = caches.get(collection);
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private static String key(Object id) {
+        return id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+    }
+}
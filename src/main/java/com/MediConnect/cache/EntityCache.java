@@ -0,0 +1,138 @@
+package com.MediConnect.cache;
+
+import com.MediConnect.events.EntityChangedEvent;
+import com.MediConnect.models.Dispensary;
+import com.MediConnect.models.Doctor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.in;
+
+/**
+ * Read-through entity lookups for dispensaries and doctors backed by the {@link DocumentCache}.
+ *
+ * Services read through here for lookups and keep using the repositories for the
+ * read-modify-write paths, then write the saved entity through with dispensarySaved / doctorSaved.
+ * Writes from other nodes arrive as {@link EntityChangedEvent}s and evict.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EntityCache {
+
+    private final MongoTemplate mongoTemplate;
+    private final DocumentCache documentCache;
+
+    public Optional<Dispensary> findDispensary(String id) {
+        return find(DocumentCache.DISPENSARIES, id, Dispensary.class);
+    }
+
+    /**
+     * Dispensaries in the order of the given ids, missing ones skipped. Cache misses are read in one query.
+     */
+    public List<Dispensary> findDispensaries(List<String> ids) {
+        Map<String, Document> documents = new HashMap<>();
+        List<Object> misses = new ArrayList<>();
+        for (String id : ids) {
+            Document cached = documentCache.getIfPresent(DocumentCache.DISPENSARIES, toStoredId(id));
+            if (cached != null) {
+                documents.put(id, cached);
+            } else {
+                misses.add(toStoredId(id));
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            for (Document document : mongoTemplate.getCollection(DocumentCache.DISPENSARIES).find(in("_id", misses))) {
+                Object id = document.get("_id");
+                documents.put(id instanceof ObjectId objectId ? objectId.toHexString() : id.toString(),
+                        documentCache.putIfAbsent(DocumentCache.DISPENSARIES, id, document));
+            }
+        }
+
+        List<Dispensary> dispensaries = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Document document = documents.get(id);
+            if (document != null) {
+                dispensaries.add(mongoTemplate.getConverter().read(Dispensary.class, document));
+            }
+        }
+        return dispensaries;
+    }
+
+    public Optional<Doctor> findDoctor(String id) {
+        return find(DocumentCache.DOCTORS, id, Doctor.class);
+    }
+
+    public void dispensarySaved(Dispensary dispensary) {
+        writeThrough(DocumentCache.DISPENSARIES, dispensary.getId(), dispensary);
+    }
+
+    public void doctorSaved(Doctor doctor) {
+        writeThrough(DocumentCache.DOCTORS, doctor.getId(), doctor);
+    }
+
+    public void dispensaryDeleted(String id) {
+        documentCache.evict(DocumentCache.DISPENSARIES, id);
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        String collection = switch (event.type()) {
+            case DISPENSARY -> DocumentCache.DISPENSARIES;
+            case DOCTOR -> DocumentCache.DOCTORS;
+            default -> null;
+        };
+        if (collection == null) {
+            return;
+        }
+
+        if (event.isInvalidateAll()) {
+            documentCache.evictAll(collection);
+        } else {
+            documentCache.evict(collection, event.id());
+        }
+    }
+
+    private <T> Optional<T> find(String collection, String id, Class<T> type) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Object storedId = toStoredId(id);
+        Document document = documentCache.get(collection, storedId, () -> mongoTemplate.getCollection(collection)
+                .find(eq("_id", storedId))
+                .first());
+        return Optional.ofNullable(document).map(doc -> mongoTemplate.getConverter().read(type, doc));
+    }
+
+    /**
+     * Store the document exactly as the mapping layer persisted it. Falls back to eviction
+     * if the entity cannot be converted, so the cache never serves a stale copy.
+     */
+    private void writeThrough(String collection, String id, Object entity) {
+        if (id == null) {
+            return;
+        }
+        try {
+            Document document = new Document();
+            mongoTemplate.getConverter().write(entity, document);
+            documentCache.put(collection, toStoredId(id), document);
+        } catch (RuntimeException ex) {
+            log.warn("Write-through to {} cache failed for {}, evicting", collection, id, ex);
+            documentCache.evict(collection, id);
+        }
+    }
+
+    // String ids that look like ObjectIds are stored as ObjectIds by the mapping layer
+    private Object toStoredId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
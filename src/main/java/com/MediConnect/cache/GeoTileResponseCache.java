@@ -0,0 +1,268 @@
+package com.MediConnect.cache;
+
+import com.MediConnect.MediConnect.dto.DispensaryDTO;
+import com.MediConnect.events.EntityChangedEvent;
+import com.MediConnect.models.Dispensary;
+import com.MediConnect.services.DispensaryService;
+import com.MediConnect.utils.GeoUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Response cache for the public nearby search, keyed by map tile rather than by exact coordinates.
+ *
+ * The radius is rounded up to a bucket and the point snapped to a tile whose side is at most half
+ * that radius. An entry holds every dispensary within bucket + tile half-diagonal of the tile centre,
+ * i.e. a superset of the answer for any point in the tile, each pre-serialized to JSON. A request then
+ * only computes exact distances, filters, sorts, pages and concatenates bytes, so results are identical
+ * to the uncached search.
+ *
+ * Entries are dropped when a dispensary they contain, or one inside their area, changes. Entries also
+ * carry the doctors/users version, since the DTOs embed doctor names and availability. The open filter
+ * depends on the time of day, so tiles are loaded without it and it is applied per request with the
+ * opening-hours index, as on /dispensaries/open.
+ */
+@Component
+public class GeoTileResponseCache extends AbstractMongoEventListener<Dispensary> {
+
+    private static final double[] RADIUS_BUCKETS_KM = {1, 2, 5, 10, 20, 50, 100, 200};
+    private static final double[] TILE_DEGREES = {0.005, 0.01, 0.02, 0.05, 0.1, 0.25, 0.5, 1.0};
+
+    private record TileKey(double tileDegrees, long row, long column, double radiusKm,
+                           String service, String specialization) {
+    }
+
+    private record Fragment(String id, double latitude, double longitude, byte[] json) {
+    }
+
+    private record TileEntry(String version, double centreLatitude, double centreLongitude, double coverageKm,
+                             Set<String> ids, List<Fragment> fragments) {
+
+        boolean covers(double latitude, double longitude) {
+            return GeoUtils.distanceKm(centreLatitude, centreLongitude, latitude, longitude) <= coverageKm;
+        }
+    }
+
+    private record Match(Fragment fragment, double distanceKm) {
+    }
+
+    private final DispensaryService dispensaryService;
+    private final ResourceVersions resourceVersions;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Cache<TileKey, TileEntry> tiles;
+
+    // Lets a load that raced an invalidation answer its request without being cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public GeoTileResponseCache(DispensaryService dispensaryService, ResourceVersions resourceVersions,
+                                MongoTemplate mongoTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                @Value("${mediconnect.geo-tile-cache.enabled:true}") boolean enabled,
+                                @Value("${mediconnect.geo-tile-cache.maximum-size:10000}") long maximumSize,
+                                @Value("${mediconnect.geo-tile-cache.ttl:5m}") Duration ttl) {
+        this.dispensaryService = dispensaryService;
+        this.resourceVersions = resourceVersions;
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.tiles = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tiles, "geo-tiles");
+    }
+
+    /**
+     * JSON array of the nearby search result page, served from the tile cache when the radius has a bucket
+     */
+    public byte[] nearby(double latitude, double longitude, double radiusKm, Boolean open, String service,
+                         String specialization, int page, int size) {
+        dispensaryService.validateNearbySearch(radiusKm, page, size);
+
+        double bucket = radiusBucket(radiusKm);
+        if (!enabled || bucket == 0) {
+            return serialize(dispensaryService.getNearbyDispensaries(
+                    latitude, longitude, radiusKm, open, service, specialization, page, size));
+        }
+
+        double tileDegrees = tileDegrees(bucket);
+        long row = (long) Math.floor((latitude + 90.0) / tileDegrees);
+        long column = (long) Math.floor((longitude + 180.0) / tileDegrees);
+        TileKey key = new TileKey(tileDegrees, row, column, bucket, service, specialization);
+
+        String version = resourceVersions.collectionsVersion(DocumentCache.DOCTORS, ResourceVersions.USERS);
+        TileEntry entry = tiles.getIfPresent(key);
+        if (entry == null || !entry.version().equals(version)) {
+            long invalidationsBefore = invalidations.get();
+            entry = load(key, version);
+            if (invalidations.get() == invalidationsBefore) {
+                tiles.put(key, entry);
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (Fragment fragment : entry.fragments()) {
+            double distance = GeoUtils.distanceKm(latitude, longitude, fragment.latitude(), fragment.longitude());
+            if (distance <= radiusKm) {
+                matches.add(new Match(fragment, distance));
+            }
+        }
+        if (open != null && !matches.isEmpty()) {
+            Set<String> openIds = new HashSet<>(dispensaryService.getOpenDispensaryIds(null,
+                    matches.stream().map(match -> match.fragment().id()).toList()));
+            matches.removeIf(match -> openIds.contains(match.fragment().id()) != open);
+        }
+        matches.sort(Comparator.comparingDouble(Match::distanceKm));
+
+        int from = (int) Math.min(matches.size(), (long) page * size);
+        int to = (int) Math.min(matches.size(), (long) from + size);
+        return write(matches.subList(from, to));
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Dispensary> event) {
+        invalidate(event.getSource().getId(), event.getSource().getLocation());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Dispensary> event) {
+        Object id = event.getSource().get("_id");
+        if (id != null) {
+            invalidate(id instanceof ObjectId objectId ? objectId.toHexString() : id.toString(), null);
+        } else {
+            invalidations.incrementAndGet();
+            tiles.invalidateAll();
+        }
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.type() != EntityChangedEvent.EntityType.DISPENSARY) {
+            return;
+        }
+        if (event.isInvalidateAll()) {
+            invalidations.incrementAndGet();
+            tiles.invalidateAll();
+        } else if (event.changeType() == EntityChangedEvent.ChangeType.DELETE) {
+            invalidate(event.id(), null);
+        } else {
+            Query query = new Query(Criteria.where("_id").is(ObjectId.isValid(event.id()) ? new ObjectId(event.id()) : event.id()));
+            query.fields().include("location");
+            Dispensary dispensary = mongoTemplate.findOne(query, Dispensary.class);
+            invalidate(event.id(), dispensary != null ? dispensary.getLocation() : null);
+        }
+    }
+
+    /**
+     * Drop every tile that contains the dispensary or whose area its (new) location falls into
+     */
+    private void invalidate(String id, GeoJsonPoint location) {
+        invalidations.incrementAndGet();
+        tiles.asMap().entrySet().removeIf(tile -> tile.getValue().ids().contains(id)
+                || (location != null && tile.getValue().covers(location.getY(), location.getX())));
+    }
+
+    private TileEntry load(TileKey key, String version) {
+        double centreLatitude = Math.min(90.0, -90.0 + (key.row() + 0.5) * key.tileDegrees());
+        double centreLongitude = -180.0 + (key.column() + 0.5) * key.tileDegrees();
+        double coverageKm = key.radiusKm() + halfDiagonalKm(centreLatitude, centreLongitude, key.tileDegrees());
+
+        List<DispensaryDTO> dispensaries = dispensaryService.getAllNearbyDispensaries(
+                centreLatitude, centreLongitude, coverageKm, null, key.service(), key.specialization());
+
+        Set<String> ids = new HashSet<>();
+        List<Fragment> fragments = new ArrayList<>(dispensaries.size());
+        for (DispensaryDTO dto : dispensaries) {
+            if (dto.getLatitude() == null || dto.getLongitude() == null) {
+                continue;
+            }
+            // Serialized without the distance, which depends on the caller's position
+            dto.setDistanceKm(null);
+            ids.add(dto.getId());
+            fragments.add(new Fragment(dto.getId(), dto.getLatitude(), dto.getLongitude(), serialize(dto)));
+        }
+        return new TileEntry(version, centreLatitude, centreLongitude, coverageKm, ids, fragments);
+    }
+
+    /**
+     * Concatenate the fragments into a JSON array, splicing each one's distanceKm in before its closing brace
+     */
+    private static byte[] write(List<Match> matches) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + matches.size() * 512);
+        out.write('[');
+        for (int i = 0; i < matches.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            byte[] json = matches.get(i).fragment().json();
+            out.write(json, 0, json.length - 1);
+            out.writeBytes((",\"distanceKm\":" + matches.get(i).distanceKm() + "}").getBytes(StandardCharsets.UTF_8));
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize nearby dispensaries", e);
+        }
+    }
+
+    private static double radiusBucket(double radiusKm) {
+        for (double bucket : RADIUS_BUCKETS_KM) {
+            if (radiusKm <= bucket) {
+                return bucket;
+            }
+        }
+        return 0;
+    }
+
+    // Largest tile whose side is at most half the radius, so a tile's coverage stays close to the radius
+    private static double tileDegrees(double radiusKm) {
+        double maxDegrees = radiusKm / 2 / GeoUtils.KM_PER_DEGREE_LATITUDE;
+        double tile = TILE_DEGREES[0];
+        for (double degrees : TILE_DEGREES) {
+            if (degrees <= maxDegrees) {
+                tile = degrees;
+            }
+        }
+        return tile;
+    }
+
+    private static double halfDiagonalKm(double latitude, double longitude, double tileDegrees) {
+        double half = tileDegrees / 2;
+        double furthest = 0;
+        for (double dLat : new double[]{-half, half}) {
+            for (double dLon : new double[]{-half, half}) {
+                double cornerLatitude = Math.max(-90.0, Math.min(90.0, latitude + dLat));
+                furthest = Math.max(furthest, GeoUtils.distanceKm(latitude, longitude, cornerLatitude, longitude + dLon));
+            }
+        }
+        return furthest;
+    }
+}
@@ -0,0 +1,224 @@
+package com.MediConnect.cache;
+
+import com.MediConnect.events.EntityChangedEvent;
+import com.MediConnect.models.Dispensary;
+import com.MediConnect.utils.WeeklySchedule;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory "open at T" index over every dispensary: the manual open flag plus the compiled
+ * {@link WeeklySchedule}. Loaded on first use with a projection of just those two fields, then kept
+ * current by save/delete events on this node and {@link EntityChangedEvent}s from other nodes.
+ */
+@Component
+@Slf4j
+public class OpeningHoursIndex extends AbstractMongoEventListener<Dispensary> {
+
+    private static final String IS_OPEN = "isOpen";
+    private static final String WORKING_HOURS = "workingHours";
+
+    private final MongoTemplate mongoTemplate;
+    private final ZoneId zone;
+
+    private volatile Map<String, Entry> entries;
+    private volatile boolean loading;
+    private final Set<String> changedWhileLoading = ConcurrentHashMap.newKeySet();
+
+    public OpeningHoursIndex(MongoTemplate mongoTemplate,
+                             @Value("${mediconnect.opening-hours.zone:}") String zone) {
+        this.mongoTemplate = mongoTemplate;
+        this.zone = StringUtils.hasText(zone) ? ZoneId.of(zone) : ZoneId.systemDefault();
+    }
+
+    public LocalDateTime now() {
+        return LocalDateTime.now(zone);
+    }
+
+    /**
+     * Whether the dispensary is open at the given local time, or empty if it is not indexed
+     */
+    public Optional<Boolean> isOpenAt(String id, LocalDateTime time) {
+        Entry entry = entries().get(id);
+        return entry == null ? Optional.empty() : Optional.of(entry.isOpenAt(WeeklySchedule.minuteOfWeek(
+                time.getDayOfWeek(), time.toLocalTime())));
+    }
+
+    /**
+     * Ids of the dispensaries open at the given local time, optionally restricted to candidateIds
+     */
+    public List<String> openAt(LocalDateTime time, Collection<String> candidateIds) {
+        int minute = WeeklySchedule.minuteOfWeek(time.getDayOfWeek(), time.toLocalTime());
+        Map<String, Entry> index = entries();
+        List<String> open = new ArrayList<>();
+        if (candidateIds == null || candidateIds.isEmpty()) {
+            index.forEach((id, entry) -> {
+                if (entry.isOpenAt(minute)) {
+                    open.add(id);
+                }
+            });
+        } else {
+            for (String id : candidateIds) {
+                Entry entry = index.get(id);
+                if (entry != null && entry.isOpenAt(minute)) {
+                    open.add(id);
+                }
+            }
+        }
+        return open;
+    }
+
+    public void put(Dispensary dispensary) {
+        if (dispensary.getId() != null) {
+            entries().put(dispensary.getId(), Entry.of(dispensary));
+        }
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Dispensary> event) {
+        Dispensary dispensary = event.getSource();
+        changed(dispensary.getId(), () -> put(dispensary));
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Dispensary> event) {
+        Object id = event.getSource().get("_id");
+        if (id != null) {
+            String dispensaryId = id instanceof ObjectId objectId ? objectId.toHexString() : id.toString();
+            changed(dispensaryId, () -> entries().remove(dispensaryId));
+        }
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.type() != EntityChangedEvent.EntityType.DISPENSARY || entries == null) {
+            return;
+        }
+        if (event.isInvalidateAll()) {
+            reload();
+        } else if (event.changeType() == EntityChangedEvent.ChangeType.DELETE) {
+            changed(event.id(), () -> entries().remove(event.id()));
+        } else {
+            changed(event.id(), () -> {
+                Query query = scheduleQuery().addCriteria(Criteria.where("_id").is(toStoredId(event.id())));
+                Dispensary dispensary = mongoTemplate.findOne(query, Dispensary.class);
+                if (dispensary != null) {
+                    put(dispensary);
+                } else {
+                    entries().remove(event.id());
+                }
+            });
+        }
+    }
+
+    /**
+     * Apply a change to a loaded index, and remember it if a load is running so it is re-read afterwards.
+     * loading is checked first: a load publishes entries before clearing loading, so no change falls in between.
+     */
+    private void changed(String id, Runnable apply) {
+        if (id == null) {
+            return;
+        }
+        if (loading) {
+            changedWhileLoading.add(id);
+        }
+        if (entries != null) {
+            apply.run();
+        }
+    }
+
+    private Map<String, Entry> entries() {
+        Map<String, Entry> index = entries;
+        if (index == null) {
+            synchronized (this) {
+                index = entries != null ? entries : reload();
+            }
+        }
+        return index;
+    }
+
+    // Returns the loaded map even if the replay failed and left entries to be reloaded on next use
+    private synchronized Map<String, Entry> reload() {
+        Map<String, Entry> index = null;
+        loading = true;
+        try {
+            index = loadAll();
+            entries = index;
+        } finally {
+            loading = false;
+            if (index == null) {
+                changedWhileLoading.clear();
+            }
+        }
+        replayChangedWhileLoading(index);
+        return index;
+    }
+
+    // Re-reads the dispensaries changed while the load ran, which it may have read before the change
+    private void replayChangedWhileLoading(Map<String, Entry> index) {
+        List<String> ids = new ArrayList<>(changedWhileLoading);
+        if (ids.isEmpty()) {
+            return;
+        }
+        changedWhileLoading.removeAll(ids);
+        try {
+            Query query = scheduleQuery().addCriteria(Criteria.where("_id")
+                    .in(ids.stream().map(OpeningHoursIndex::toStoredId).toList()));
+            Set<String> found = new HashSet<>();
+            for (Dispensary dispensary : mongoTemplate.find(query, Dispensary.class)) {
+                index.put(dispensary.getId(), Entry.of(dispensary));
+                found.add(dispensary.getId());
+            }
+            ids.stream().filter(id -> !found.contains(id)).forEach(index::remove);
+        } catch (RuntimeException ex) {
+            log.warn("Could not re-read dispensaries changed while loading opening hours, reloading later", ex);
+            entries = null;
+        }
+    }
+
+    private Map<String, Entry> loadAll() {
+        Map<String, Entry> index = new ConcurrentHashMap<>();
+        for (Dispensary dispensary : mongoTemplate.find(scheduleQuery(), Dispensary.class)) {
+            index.put(dispensary.getId(), Entry.of(dispensary));
+        }
+        log.info("Indexed opening hours of {} dispensaries", index.size());
+        return index;
+    }
+
+    private static Query scheduleQuery() {
+        Query query = new Query();
+        query.fields().include(IS_OPEN, WORKING_HOURS);
+        return query;
+    }
+
+    // String ids that look like ObjectIds are stored as ObjectIds by the mapping layer
+    private static Object toStoredId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    private record Entry(boolean manuallyOpen, WeeklySchedule schedule) {
+
+        static Entry of(Dispensary dispensary) {
+            return new Entry(dispensary.isOpen(), WeeklySchedule.compile(dispensary.getWorkingHours()));
+        }
+
+        boolean isOpenAt(int minuteOfWeek) {
+            return manuallyOpen && schedule.isOpenAt(minuteOfWeek);
+        }
+    }
+}
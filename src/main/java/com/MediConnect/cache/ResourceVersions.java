@@ -0,0 +1,144 @@
+package com.MediConnect.cache;
+
+import com.MediConnect.events.EntityChangedEvent;
+import com.MediConnect.models.QueueEntry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters behind the ETags of the directory and queue reads, so a poll whose
+ * If-None-Match still matches is answered 304 without touching Mongo or Jackson.
+ *
+ * Counters move on every save or delete made on this node and on every {@link EntityChangedEvent},
+ * so with change streams enabled they also follow writes made on other nodes. Without change streams
+ * a write on another node is invisible here, so each tag also carries the current unsynced-max-age
+ * window and stops matching when the window ends. The epoch is random per process: a restart, or a
+ * request landing on another node, simply misses and gets a full body.
+ */
+@Component
+public class ResourceVersions extends AbstractMongoEventListener<Object> {
+
+    public static final String USERS = "users";
+    private static final String QUEUE_ENTRIES = "queue_entries";
+
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    private final Map<String, AtomicLong> collectionVersions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> queueVersions = new ConcurrentHashMap<>();
+
+    // Bumped when a queue change cannot be attributed to a dispensary (deletes, lost change streams)
+    private final AtomicLong queueGeneration = new AtomicLong();
+
+    @Value("${mediconnect.change-streams.enabled:false}")
+    private boolean followsRemoteWrites;
+
+    @Value("${mediconnect.etag.unsynced-max-age:5s}")
+    private Duration unsyncedMaxAge;
+
+    /**
+     * ETag for a listing built from the given collections, e.g. dispensaries embed doctor and user names
+     */
+    public String directoryEtag(String resource, String... collections) {
+        return etag(resource, collectionsVersion(collections));
+    }
+
+    /**
+     * ETag for a dispensary's queue; entries embed patient, doctor and dispensary names
+     */
+    public String queueEtag(String dispensaryId) {
+        return etag("queue", queueGeneration.get() + "." + version(queueVersions, dispensaryId)
+                + "." + collectionsVersion(DocumentCache.DISPENSARIES, DocumentCache.DOCTORS, USERS));
+    }
+
+    /**
+     * Sets the ETag and marks the response as revalidate-on-every-use. Returns true when the
+     * client's copy is current, in which case the response is already a 304 and the caller returns nothing.
+     */
+    public boolean checkNotModified(ServletWebRequest request, String etag) {
+        HttpServletResponse response = request.getResponse();
+        if (response != null) {
+            // Also stops Spring Security from adding no-store, which would prevent clients keeping a copy
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        }
+        return request.checkNotModified(etag);
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        if (event.getSource() instanceof QueueEntry entry) {
+            if (entry.getDispensary() != null && entry.getDispensary().getId() != null) {
+                bump(queueVersions, entry.getDispensary().getId());
+            } else {
+                queueGeneration.incrementAndGet();
+            }
+        } else if (event.getCollectionName() != null) {
+            bump(collectionVersions, event.getCollectionName());
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        if (QUEUE_ENTRIES.equals(event.getCollectionName())) {
+            queueGeneration.incrementAndGet();
+        } else if (event.getCollectionName() != null) {
+            bump(collectionVersions, event.getCollectionName());
+        }
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.type() == EntityChangedEvent.EntityType.QUEUE_ENTRY) {
+            if (event.dispensaryId() != null) {
+                bump(queueVersions, event.dispensaryId());
+            } else {
+                queueGeneration.incrementAndGet();
+            }
+        } else {
+            bump(collectionVersions, event.type().getCollection());
+        }
+    }
+
+    private String etag(String prefix, Object version) {
+        String tag = prefix + "-" + epoch + "-" + version;
+        if (!followsRemoteWrites) {
+            tag += "-" + System.currentTimeMillis() / unsyncedMaxAge.toMillis();
+        }
+        return "W/\"" + tag + "\"";
+    }
+
+    /**
+     * Combined version of the given collections; changes whenever any of them is written
+     */
+    public String collectionsVersion(String... collections) {
+        StringBuilder version = new StringBuilder();
+        for (String collection : collections) {
+            if (!version.isEmpty()) {
+                version.append('.');
+            }
+            version.append(version(collectionVersions, collection));
+        }
+        return version.toString();
+    }
+
+    private static long version(Map<String, AtomicLong> versions, String key) {
+        AtomicLong version = versions.get(key);
+        return version != null ? version.get() : 0L;
+    }
+
+    private static void bump(Map<String, AtomicLong> versions, String key) {
+        versions.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+    }
+}
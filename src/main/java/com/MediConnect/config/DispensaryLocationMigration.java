@@ -0,0 +1,62 @@
+package com.MediConnect.config;
+
+import com.MediConnect.models.Dispensary;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeospatialIndex;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves dispensary locations from legacy [longitude, latitude] pairs under a 2d index to GeoJSON
+ * points under a 2dsphere index. Runs before the web server starts and is a no-op once done.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DispensaryLocationMigration {
+
+    private static final String LOCATION = "location";
+
+    private final MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        MongoCollection<Document> dispensaries = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Dispensary.class));
+
+        // $geoNear refuses to choose between two geo indexes on the same field
+        List<String> legacyIndexes = new ArrayList<>();
+        for (Document index : dispensaries.listIndexes()) {
+            Document key = index.get("key", Document.class);
+            if (key != null && "2d".equals(key.get(LOCATION))) {
+                legacyIndexes.add(index.getString("name"));
+            }
+        }
+        legacyIndexes.forEach(name -> {
+            log.info("Dropping legacy 2d index {} on dispensaries", name);
+            dispensaries.dropIndex(name);
+        });
+
+        UpdateResult result = dispensaries.updateMany(
+                Filters.type(LOCATION, BsonType.ARRAY),
+                List.of(new Document("$set", new Document(LOCATION,
+                        new Document("type", "Point").append("coordinates", "$" + LOCATION)))));
+        if (result.getModifiedCount() > 0) {
+            log.info("Converted {} dispensary locations to GeoJSON points", result.getModifiedCount());
+        }
+
+        mongoTemplate.indexOps(Dispensary.class).ensureIndex(new GeospatialIndex(LOCATION)
+                .typed(GeoSpatialIndexType.GEO_2DSPHERE)
+                .named(Dispensary.LOCATION_INDEX));
+    }
+}
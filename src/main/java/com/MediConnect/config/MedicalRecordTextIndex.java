@@ -0,0 +1,54 @@
+package com.MediConnect.config;
+
+import com.MediConnect.models.MedicalRecord;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Text index behind the medical history search. Patient is a prefix key, so a search only walks
+ * the index entries of the patient being searched instead of every record containing the words.
+ * A collection may have a single text index; any other one is replaced.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MedicalRecordTextIndex {
+
+    public static final String NAME = "medical_records_text";
+
+    private final MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void ensureIndex() {
+        MongoCollection<Document> records = mongoTemplate.getCollection(mongoTemplate.getCollectionName(MedicalRecord.class));
+
+        for (Document index : records.listIndexes()) {
+            Document key = index.get("key", Document.class);
+            if (key != null && key.containsKey("_fts") && !NAME.equals(index.getString("name"))) {
+                log.info("Replacing text index {} on medical records", index.getString("name"));
+                records.dropIndex(index.getString("name"));
+            }
+        }
+
+        Document keys = new Document("patient.$id", 1)
+                .append("diagnosis", "text")
+                .append("chiefComplaint", "text")
+                .append("symptoms", "text")
+                .append("prescriptions.medicationName", "text")
+                .append("labTests", "text")
+                .append("notes", "text");
+        Document weights = new Document("diagnosis", 5)
+                .append("chiefComplaint", 4)
+                .append("symptoms", 3)
+                .append("prescriptions.medicationName", 3)
+                .append("labTests", 2)
+                .append("notes", 1);
+        records.createIndex(keys, new IndexOptions().name(NAME).weights(weights).defaultLanguage("english"));
+    }
+}
@@ -1,10 +1,28 @@
 package com.MediConnect.config;
 
+import com.MediConnect.cache.CachingDbRefResolver;
+import com.MediConnect.cache.DocumentCache;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
 @Configuration
 @EnableMongoRepositories(basePackages = "com.MediConnect.repositories")
 public class MongoConfig {
-}
\ No newline at end of file
+
+    /**
+     * Same converter Spring Boot would create, but resolving @DBRef targets through the document cache
+     */
+    @Bean
+    public MappingMongoConverter mappingMongoConverter(MongoDatabaseFactory factory, MongoMappingContext context,
+                                                       MongoCustomConversions conversions, DocumentCache documentCache) {
+        MappingMongoConverter converter = new MappingMongoConverter(new CachingDbRefResolver(factory, documentCache), context);
+        converter.setCustomConversions(conversions);
+        return converter;
+    }
+}
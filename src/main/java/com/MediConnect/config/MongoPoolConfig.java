@@ -0,0 +1,65 @@
+package com.MediConnect.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection-pool sizing for both the blocking and the reactive Mongo clients.
+ *
+ * driver-default - leave the driver defaults (100 connections, 2 minute wait)
+ * fixed          - use max-size as-is
+ * per-core       - per-core-connections x available processors, capped by max-size
+ */
+@Configuration
+@Slf4j
+public class MongoPoolConfig {
+
+    @Value("${mediconnect.mongo.pool.strategy:driver-default}")
+    private String strategy;
+
+    @Value("${mediconnect.mongo.pool.max-size:100}")
+    private int maxSize;
+
+    @Value("${mediconnect.mongo.pool.min-size:0}")
+    private int minSize;
+
+    @Value("${mediconnect.mongo.pool.per-core-connections:8}")
+    private int perCoreConnections;
+
+    @Value("${mediconnect.mongo.pool.max-connecting:2}")
+    private int maxConnecting;
+
+    @Value("${mediconnect.mongo.pool.max-wait-time:2m}")
+    private Duration maxWaitTime;
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer connectionPoolCustomizer() {
+        return builder -> {
+            int poolSize = switch (strategy.toLowerCase()) {
+                case "fixed" -> maxSize;
+                case "per-core" -> Math.min(maxSize,
+                        perCoreConnections * Runtime.getRuntime().availableProcessors());
+                default -> -1;
+            };
+
+            if (poolSize <= 0) {
+                return;
+            }
+
+            log.info("Mongo connection pool: strategy={}, maxSize={}, minSize={}, maxWaitTime={}",
+                    strategy, poolSize, minSize, maxWaitTime);
+
+            builder.applyToConnectionPoolSettings(pool -> pool
+                    .maxSize(poolSize)
+                    .minSize(Math.min(minSize, poolSize))
+                    .maxConnecting(maxConnecting)
+                    .maxWaitTime(maxWaitTime.toMillis(), TimeUnit.MILLISECONDS));
+        };
+    }
+}
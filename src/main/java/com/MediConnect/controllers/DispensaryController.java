@@ -1,15 +1,27 @@
 package com.MediConnect.controllers;
 
 import com.MediConnect.MediConnect.dto.DispensaryDTO;
+import com.MediConnect.MediConnect.dto.DispensaryRecommendationDTO;
+import com.MediConnect.cache.DocumentCache;
+import com.MediConnect.cache.GeoTileResponseCache;
+import com.MediConnect.cache.ResourceVersions;
 import com.MediConnect.services.DispensaryService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -19,6 +31,8 @@ import java.util.List;
 public class DispensaryController {
 
     private final DispensaryService dispensaryService;
+    private final ResourceVersions resourceVersions;
+    private final GeoTileResponseCache geoTileResponseCache;
 
     @GetMapping("/{id}")
     @Operation(summary = "Get dispensary by ID")
@@ -28,7 +42,12 @@ public class DispensaryController {
 
     @GetMapping
     @Operation(summary = "Get all dispensaries")
-    public ResponseEntity<List<DispensaryDTO>> getAllDispensaries() {
+    public ResponseEntity<List<DispensaryDTO>> getAllDispensaries(ServletWebRequest request) {
+        String etag = resourceVersions.directoryEtag(DocumentCache.DISPENSARIES,
+                DocumentCache.DISPENSARIES, DocumentCache.DOCTORS, ResourceVersions.USERS);
+        if (resourceVersions.checkNotModified(request, etag)) {
+            return null;
+        }
         return ResponseEntity.ok(dispensaryService.getAllDispensaries());
     }
 
@@ -38,13 +57,41 @@ public class DispensaryController {
         return ResponseEntity.ok(dispensaryService.getOpenDispensaries());
     }
 
+    @GetMapping("/open-at")
+    @Operation(summary = "Get ids of dispensaries open now, or at the given local time")
+    public ResponseEntity<List<String>> getOpenDispensaryIds(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @RequestParam(required = false) List<String> ids) {
+        return ResponseEntity.ok(dispensaryService.getOpenDispensaryIds(at, ids));
+    }
+
     @GetMapping("/nearby")
-    @Operation(summary = "Get nearby dispensaries")
-    public ResponseEntity<List<DispensaryDTO>> getNearbyDispensaries(
+    @Operation(summary = "Get nearby dispensaries, nearest first with distance, filtered and paged")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = DispensaryDTO.class))))
+    public ResponseEntity<byte[]> getNearbyDispensaries(
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @RequestParam(defaultValue = "10") double radiusKm,
+            @RequestParam(required = false) Boolean open,
+            @RequestParam(required = false) String service,
+            @RequestParam(required = false) String specialization,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(geoTileResponseCache.nearby(latitude, longitude, radiusKm, open, service, specialization, page, size));
+    }
+
+    @GetMapping("/recommend")
+    @Operation(summary = "Rank nearby dispensaries by travel time plus estimated queue wait")
+    public ResponseEntity<List<DispensaryRecommendationDTO>> recommendDispensaries(
             @RequestParam double latitude,
             @RequestParam double longitude,
-            @RequestParam(defaultValue = "10") double radiusKm) {
-        return ResponseEntity.ok(dispensaryService.getNearbyDispensaries(latitude, longitude, radiusKm));
+            @RequestParam(defaultValue = "10") double radiusKm,
+            @RequestParam(defaultValue = "5") int k,
+            @RequestParam(defaultValue = "false") boolean includeClosed) {
+        return ResponseEntity.ok(dispensaryService.recommendDispensaries(latitude, longitude, radiusKm, k, includeClosed));
     }
 
     @GetMapping("/search")
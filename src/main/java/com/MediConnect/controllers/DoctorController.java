@@ -1,6 +1,8 @@
 package com.MediConnect.controllers;
 
 import com.MediConnect.MediConnect.dto.DoctorDTO;
+import com.MediConnect.cache.DocumentCache;
+import com.MediConnect.cache.ResourceVersions;
 import com.MediConnect.security.CustomUserDetails;
 import com.MediConnect.services.DoctorService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -11,6 +13,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 
@@ -22,6 +25,7 @@ import java.util.List;
 public class DoctorController {
 
     private final DoctorService doctorService;
+    private final ResourceVersions resourceVersions;
 
     @GetMapping("/{id}")
     @Operation(summary = "Get doctor by ID")
@@ -38,7 +42,12 @@ public class DoctorController {
 
     @GetMapping
     @Operation(summary = "Get all doctors")
-    public ResponseEntity<List<DoctorDTO>> getAllDoctors() {
+    public ResponseEntity<List<DoctorDTO>> getAllDoctors(ServletWebRequest request) {
+        String etag = resourceVersions.directoryEtag(DocumentCache.DOCTORS,
+                DocumentCache.DOCTORS, ResourceVersions.USERS);
+        if (resourceVersions.checkNotModified(request, etag)) {
+            return null;
+        }
         return ResponseEntity.ok(doctorService.getAllDoctors());
     }
 
@@ -1,6 +1,8 @@
 package com.MediConnect.controllers;
 
 import com.MediConnect.MediConnect.dto.MedicalRecordDTO;
+import com.MediConnect.MediConnect.dto.MedicalRecordSearchResultDTO;
+import com.MediConnect.security.CustomUserDetails;
 import com.MediConnect.services.MedicalRecordService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -9,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -44,6 +47,21 @@ public class MedicalRecordController {
         return ResponseEntity.ok(medicalRecordService.getPatientMedicalRecords(patientId));
     }
 
+    @GetMapping("/patient/{patientId}/search")
+    @PreAuthorize("hasRole('PATIENT') or hasRole('DOCTOR') or hasRole('DISPENSARY_ADMIN')")
+    @Operation(summary = "Search a patient's medical history, ranked, with highlighted snippets")
+    public ResponseEntity<MedicalRecordSearchResultDTO> searchPatientMedicalRecords(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @PathVariable String patientId,
+            @RequestParam String q,
+            @RequestParam(required = false) String doctorId,
+            @RequestParam(required = false) String dispensaryId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(medicalRecordService.searchPatientRecords(
+                userDetails, patientId, q, doctorId, dispensaryId, page, size));
+    }
+
     @GetMapping("/patient/{patientId}/date-range")
     @PreAuthorize("hasRole('PATIENT') or hasRole('DOCTOR')")
     @Operation(summary = "Get patient records by date range")
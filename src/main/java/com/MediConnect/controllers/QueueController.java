@@ -1,19 +1,28 @@
 package com.MediConnect.controllers;
 
 import com.MediConnect.MediConnect.dto.QueueEntryDTO;
+import com.MediConnect.cache.ResourceVersions;
 import com.MediConnect.dto.auth.QueueJoinRequest;
 import com.MediConnect.security.CustomUserDetails;
 import com.MediConnect.services.QueueService;
+import com.MediConnect.services.QueueUpdateNotifier;
+import com.MediConnect.services.ReactiveQueueService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import reactor.core.publisher.Flux;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -24,6 +33,13 @@ import java.util.List;
 public class QueueController {
 
     private final QueueService queueService;
+    private final ReactiveQueueService reactiveQueueService;
+    private final QueueUpdateNotifier queueUpdateNotifier;
+    private final ResourceVersions resourceVersions;
+
+    // Periodic re-read so streams also pick up writes made on other nodes
+    @Value("${mediconnect.queue.stream-refresh-interval:30s}")
+    private Duration streamRefreshInterval;
 
     @PostMapping("/join")
     @PreAuthorize("hasRole('PATIENT')")
@@ -36,15 +52,34 @@ public class QueueController {
 
     @GetMapping("/dispensary/{dispensaryId}")
     @Operation(summary = "Get queue by dispensary")
-    public ResponseEntity<List<QueueEntryDTO>> getQueueByDispensary(@PathVariable String dispensaryId) {
-        return ResponseEntity.ok(queueService.getQueueByDispensary(dispensaryId));
+    public Flux<QueueEntryDTO> getQueueByDispensary(@PathVariable String dispensaryId, ServletWebRequest request) {
+        // Taken before the read, so a write racing this poll can only make the tag older than the body
+        String etag = resourceVersions.queueEtag(dispensaryId);
+        if (resourceVersions.checkNotModified(request, etag)) {
+            return null;
+        }
+        return reactiveQueueService.getQueueByDispensary(dispensaryId);
+    }
+
+    @GetMapping(value = "/dispensary/{dispensaryId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream queue updates for a dispensary (server-sent events)")
+    public Flux<ServerSentEvent<List<QueueEntryDTO>>> streamQueueByDispensary(@PathVariable String dispensaryId) {
+        return queueUpdateNotifier.dispensaryUpdates(dispensaryId)
+                .mergeWith(Flux.interval(streamRefreshInterval).map(tick -> dispensaryId))
+                .startWith(dispensaryId)
+                .onBackpressureLatest()
+                .concatMap(id -> reactiveQueueService.getQueueByDispensary(id).collectList(), 1)
+                .map(queue -> ServerSentEvent.<List<QueueEntryDTO>>builder()
+                        .event("queue")
+                        .data(queue)
+                        .build());
     }
 
     @GetMapping("/doctor/{doctorId}")
     @PreAuthorize("hasRole('DOCTOR') or hasRole('DISPENSARY_ADMIN')")
     @Operation(summary = "Get queue by doctor")
-    public ResponseEntity<List<QueueEntryDTO>> getQueueByDoctor(@PathVariable String doctorId) {
-        return ResponseEntity.ok(queueService.getQueueByDoctor(doctorId));
+    public Flux<QueueEntryDTO> getQueueByDoctor(@PathVariable String doctorId) {
+        return reactiveQueueService.getQueueByDoctor(doctorId);
     }
 
     @GetMapping("/patient/{patientId}/history")
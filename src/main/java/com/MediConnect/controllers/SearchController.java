@@ -0,0 +1,45 @@
+package com.MediConnect.controllers;
+
+import com.MediConnect.MediConnect.dto.SearchResultDTO;
+import com.MediConnect.MediConnect.dto.SuggestionDTO;
+import com.MediConnect.services.SearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/search")
+@RequiredArgsConstructor
+@Tag(name = "Search", description = "Dispensary and doctor directory search")
+public class SearchController {
+
+    private final SearchService searchService;
+
+    @GetMapping
+    @Operation(summary = "Full-text search over dispensaries or doctors, with facet counts")
+    public ResponseEntity<SearchResultDTO> search(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = SearchService.DISPENSARIES) String type,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String service,
+            @RequestParam(required = false) String specialization,
+            @RequestParam(required = false) String language) {
+        return ResponseEntity.ok(searchService.search(q, type, limit, city, service, specialization, language));
+    }
+
+    @GetMapping("/suggest")
+    @Operation(summary = "Autocomplete dispensary and doctor names, cities and specializations")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(searchService.suggest(q, limit));
+    }
+}
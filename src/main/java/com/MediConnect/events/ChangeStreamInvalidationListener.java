@@ -0,0 +1,234 @@
+package com.MediConnect.events;
+
+import com.MediConnect.events.EntityChangedEvent.ChangeType;
+import com.MediConnect.events.EntityChangedEvent.EntityType;
+import com.MediConnect.models.ChangeStreamToken;
+import com.MediConnect.repositories.ChangeStreamTokenRepository;
+import com.mongodb.DBRef;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.MessageListener;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the cached collections through MongoDB change streams and republishes
+ * every write, from any node, as a local {@link EntityChangedEvent}.
+ * Requires a replica set, so it is only enabled with mediconnect.change-streams.enabled=true.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "mediconnect.change-streams.enabled", havingValue = "true")
+public class ChangeStreamInvalidationListener implements SmartLifecycle {
+
+    private final MongoTemplate mongoTemplate;
+    private final ChangeStreamTokenRepository tokenRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${mediconnect.node-id}")
+    private String nodeId;
+
+    @Value("${mediconnect.change-streams.retry-initial:1s}")
+    private Duration retryInitial;
+
+    @Value("${mediconnect.change-streams.retry-max:1m}")
+    private Duration retryMax;
+
+    private final Map<EntityType, Subscription> subscriptions = new EnumMap<>(EntityType.class);
+    // Consecutive failures per stream since its last delivered change, drives the restart backoff
+    private final Map<EntityType, Integer> failures = new EnumMap<>(EntityType.class);
+    private MessageListenerContainer container;
+    private ScheduledExecutorService retryScheduler;
+
+    @Override
+    public synchronized void start() {
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "change-stream-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        container = new DefaultMessageListenerContainer(mongoTemplate);
+        container.start();
+        for (EntityType type : EntityType.values()) {
+            subscribe(type);
+        }
+        log.info("Change stream listener started for node {}", nodeId);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (container != null) {
+            container.stop();
+            container = null;
+        }
+        if (retryScheduler != null) {
+            retryScheduler.shutdownNow();
+            retryScheduler = null;
+        }
+        subscriptions.clear();
+        failures.clear();
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return container != null && container.isRunning();
+    }
+
+    // A failure to register (e.g. the token lookup hitting a Mongo outage) retries through the same backoff
+    private void subscribe(EntityType type) {
+        try {
+            register(type);
+        } catch (RuntimeException e) {
+            onError(type, e);
+        }
+    }
+
+    private synchronized void register(EntityType type) {
+        if (container == null) {
+            return;
+        }
+
+        MessageListener<ChangeStreamDocument<Document>, Document> listener =
+                message -> onChange(type, message.getRaw());
+
+        ChangeStreamRequest.ChangeStreamRequestBuilder<Document> builder = ChangeStreamRequest.builder(listener)
+                .collection(type.getCollection());
+        if (type == EntityType.QUEUE_ENTRY) {
+            // Queue events need the entry's dispensary, so look it up for updates and keep only that field
+            builder.fullDocumentLookup(FullDocument.UPDATE_LOOKUP)
+                    .filter(new Document("$project", new Document("operationType", 1)
+                            .append("ns", 1)
+                            .append("documentKey", 1)
+                            .append("fullDocument.dispensary", 1)));
+        }
+
+        tokenRepository.findById(tokenId(type))
+                .map(ChangeStreamToken::getToken)
+                .map(BsonDocument::parse)
+                .ifPresent(builder::resumeAfter);
+
+        Subscription subscription = container.register(builder.build(), Document.class,
+                error -> onError(type, error));
+        subscriptions.put(type, subscription);
+    }
+
+    private void onChange(EntityType type, ChangeStreamDocument<Document> change) {
+        if (change == null) {
+            return;
+        }
+        synchronized (this) {
+            failures.remove(type);
+        }
+
+        ChangeType changeType = switch (change.getOperationType()) {
+            case INSERT -> ChangeType.INSERT;
+            case UPDATE -> ChangeType.UPDATE;
+            case REPLACE -> ChangeType.REPLACE;
+            case DELETE -> ChangeType.DELETE;
+            default -> ChangeType.INVALIDATE_ALL; // drop, rename, invalidate
+        };
+
+        String id = changeType == ChangeType.INVALIDATE_ALL ? null : extractId(change.getDocumentKey());
+        eventPublisher.publishEvent(id != null
+                ? new EntityChangedEvent(type, id, changeType, dispensaryId(change.getFullDocument()))
+                : EntityChangedEvent.invalidateAll(type));
+
+        if (change.getResumeToken() != null) {
+            tokenRepository.save(new ChangeStreamToken(
+                    tokenId(type), nodeId, type.getCollection(), change.getResumeToken().toJson(), null));
+        }
+    }
+
+    /**
+     * A failed cursor may have skipped events (e.g. the resume token fell off the oplog),
+     * so drop everything cached for the type and restart the stream from now.
+     * Restarts back off exponentially up to retry-max, so a persistent failure (no replica set,
+     * lost connection) does not spin.
+     */
+    private void onError(EntityType type, Throwable error) {
+        Duration delay;
+        synchronized (this) {
+            Subscription previous = subscriptions.remove(type);
+            if (previous != null && container != null) {
+                container.remove(previous);
+            }
+            int attempt = failures.merge(type, 1, Integer::sum);
+            delay = backoff(attempt);
+        }
+        log.error("Change stream on {} failed, restarting without resume token in {}",
+                type.getCollection(), delay, error);
+
+        // Scheduled first, so a Mongo outage failing the calls below cannot lose the restart
+        scheduleSubscribe(type, delay);
+        try {
+            tokenRepository.deleteById(tokenId(type));
+        } catch (RuntimeException e) {
+            log.warn("Could not delete the resume token of {}", type.getCollection(), e);
+        }
+        eventPublisher.publishEvent(EntityChangedEvent.invalidateAll(type));
+    }
+
+    private synchronized void scheduleSubscribe(EntityType type, Duration delay) {
+        if (retryScheduler != null) {
+            retryScheduler.schedule(() -> subscribe(type), delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private Duration backoff(int attempt) {
+        long shift = Math.min(attempt - 1, 30);
+        long millis = retryInitial.toMillis() << shift;
+        return millis <= 0 || millis > retryMax.toMillis() ? retryMax : Duration.ofMillis(millis);
+    }
+
+    private String tokenId(EntityType type) {
+        return nodeId + ":" + type.getCollection();
+    }
+
+    // Dispensary reference of a queue entry document, null for other collections and deletes
+    private String dispensaryId(Document fullDocument) {
+        Object dispensary = fullDocument != null ? fullDocument.get("dispensary") : null;
+        Object id = dispensary instanceof DBRef dbRef ? dbRef.getId()
+                : dispensary instanceof Document reference ? reference.get("$id")
+                : null;
+        if (id instanceof ObjectId objectId) {
+            return objectId.toHexString();
+        }
+        return id != null ? id.toString() : null;
+    }
+
+    private String extractId(BsonDocument documentKey) {
+        if (documentKey == null || !documentKey.containsKey("_id")) {
+            return null;
+        }
+        BsonValue id = documentKey.get("_id");
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        if (id.isString()) {
+            return id.asString().getValue();
+        }
+        return id.toString();
+    }
+}
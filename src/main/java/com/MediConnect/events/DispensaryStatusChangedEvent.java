@@ -0,0 +1,10 @@
+package com.MediConnect.events;
+
+import java.time.LocalDateTime;
+
+/**
+ * A dispensary was opened or closed; also the payload pushed to /topic/dispensaries/{dispensaryId}/status.
+ * Clients can drop a status whose changedAt is older than the one they already show.
+ */
+public record DispensaryStatusChangedEvent(String dispensaryId, boolean open, LocalDateTime changedAt) {
+}
@@ -0,0 +1,9 @@
+package com.MediConnect.events;
+
+import java.time.LocalDateTime;
+
+/**
+ * A doctor's availability status changed; also the payload pushed to /topic/doctors/{doctorId}/availability.
+ */
+public record DoctorAvailabilityChangedEvent(String doctorId, String status, LocalDateTime changedAt) {
+}
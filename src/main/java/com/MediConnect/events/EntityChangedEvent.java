@@ -0,0 +1,46 @@
+package com.MediConnect.events;
+
+/**
+ * Invalidation event for a cached entity. A null id means every cached
+ * entry of that type must be dropped (collection dropped or stream lost).
+ * Queue entry events also carry the entry's dispensary id when it is known.
+ */
+public record EntityChangedEvent(EntityType type, String id, ChangeType changeType, String dispensaryId) {
+
+    public EntityChangedEvent(EntityType type, String id, ChangeType changeType) {
+        this(type, id, changeType, null);
+    }
+
+    public static EntityChangedEvent invalidateAll(EntityType type) {
+        return new EntityChangedEvent(type, null, ChangeType.INVALIDATE_ALL);
+    }
+
+    public boolean isInvalidateAll() {
+        return id == null;
+    }
+
+    public enum EntityType {
+        DISPENSARY("dispensaries"),
+        DOCTOR("doctors"),
+        USER("users"),
+        QUEUE_ENTRY("queue_entries");
+
+        private final String collection;
+
+        EntityType(String collection) {
+            this.collection = collection;
+        }
+
+        public String getCollection() {
+            return collection;
+        }
+    }
+
+    public enum ChangeType {
+        INSERT,
+        UPDATE,
+        REPLACE,
+        DELETE,
+        INVALIDATE_ALL
+    }
+}
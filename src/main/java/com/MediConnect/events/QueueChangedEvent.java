@@ -0,0 +1,10 @@
+package com.MediConnect.events;
+
+import com.MediConnect.MediConnect.dto.QueueEntryDTO;
+
+/**
+ * A queue entry was created or changed status. Published by QueueService and
+ * dispatched to subscribers once the change is committed.
+ */
+public record QueueChangedEvent(String dispensaryId, String doctorId, QueueEntryDTO entry) {
+}
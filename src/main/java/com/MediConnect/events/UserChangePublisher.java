@@ -0,0 +1,38 @@
+package com.MediConnect.events;
+
+import com.MediConnect.models.User;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes an {@link EntityChangedEvent} for every User written on this node, whichever
+ * service performs the save, so principal caches can evict role or activation changes
+ * without waiting for the change stream.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserChangePublisher extends AbstractMongoEventListener<User> {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<User> event) {
+        eventPublisher.publishEvent(new EntityChangedEvent(
+                EntityChangedEvent.EntityType.USER, event.getSource().getId(), EntityChangedEvent.ChangeType.UPDATE));
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<User> event) {
+        Object id = event.getSource().get("_id");
+        eventPublisher.publishEvent(id != null
+                ? new EntityChangedEvent(EntityChangedEvent.EntityType.USER,
+                        id instanceof ObjectId objectId ? objectId.toHexString() : id.toString(),
+                        EntityChangedEvent.ChangeType.DELETE)
+                : EntityChangedEvent.invalidateAll(EntityChangedEvent.EntityType.USER));
+    }
+}
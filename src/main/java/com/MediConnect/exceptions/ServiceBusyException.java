@@ -0,0 +1,20 @@
+package com.MediConnect.exceptions;
+
+import java.time.Duration;
+
+/**
+ * A bounded resource is saturated; the client should retry after the given delay (503 + Retry-After)
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ServiceBusyException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
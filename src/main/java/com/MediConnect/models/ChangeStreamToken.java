@@ -0,0 +1,28 @@
+package com.MediConnect.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "change_stream_tokens")
+public class ChangeStreamToken {
+    @Id
+    private String id; // <nodeId>:<collection>
+
+    private String nodeId;
+    private String collection;
+
+    // Last processed resume token, stored as extended JSON
+    private String token;
+
+    @LastModifiedDate
+    private LocalDateTime updatedAt;
+}
@@ -6,8 +6,10 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
 import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
 import org.springframework.data.mongodb.core.index.Indexed;
 
@@ -21,6 +23,8 @@ import java.util.List;
 @AllArgsConstructor
 @Document(collection = "dispensaries")
 public class Dispensary {
+    public static final String LOCATION_INDEX = "location_2dsphere";
+
     @Id
     private String id;
 
@@ -49,9 +53,9 @@ public class Dispensary {
     private String email;
     private String website;
 
-    // Geolocation - MongoDB uses [longitude, latitude] order for GeoJSON
-    @GeoSpatialIndexed
-    private double[] location; // [longitude, latitude]
+    // Geolocation - GeoJSON point, x = longitude, y = latitude
+    @GeoSpatialIndexed(name = LOCATION_INDEX, type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint location;
 
     // Images
     private String[] images;
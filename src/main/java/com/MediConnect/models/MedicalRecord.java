@@ -7,6 +7,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -48,6 +49,10 @@ public class  MedicalRecord {
     @CreatedDate
     private LocalDateTime createdAt;
 
+    // Relevance of a text search hit; only set on search results, never stored
+    @TextScore
+    private Float score;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
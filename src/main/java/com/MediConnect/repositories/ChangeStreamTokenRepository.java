@@ -0,0 +1,9 @@
+package com.MediConnect.repositories;
+
+import com.MediConnect.models.ChangeStreamToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ChangeStreamTokenRepository extends MongoRepository<ChangeStreamToken, String> {
+}
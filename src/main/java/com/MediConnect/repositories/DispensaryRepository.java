@@ -2,14 +2,11 @@ package com.MediConnect.repositories;
 
 import com.MediConnect.models.Dispensary;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.geo.Distance;
-import org.springframework.data.geo.Point;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface DispensaryRepository extends MongoRepository<Dispensary, String> {
+public interface DispensaryRepository extends MongoRepository<Dispensary, String>, DispensaryRepositoryCustom {
     List<Dispensary> findByCity(String city);
     List<Dispensary> findByIsOpenTrue();
-    List<Dispensary> findByLocationNear(Point location, Distance distance);
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.MediConnect.repositories;
+
+import com.MediConnect.models.Dispensary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Point;
+
+import java.util.Collection;
+
+public interface DispensaryRepositoryCustom {
+
+    /**
+     * $geoNear over the 2dsphere location index: nearest first, distances in kilometres,
+     * optional filters applied inside the $geoNear stage. Null filters are ignored.
+     * open keeps the dispensaries in (true) or not in (false) openIds, the ones open by flag and working
+     * hours according to OpeningHoursIndex, so "open" means the same here as on /dispensaries/open.
+     */
+    GeoResults<Dispensary> findNear(Point point, double maxDistanceKm, Boolean open, Collection<String> openIds,
+                                    String service, String specialization, Pageable pageable);
+}
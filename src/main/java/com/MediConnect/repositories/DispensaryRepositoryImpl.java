@@ -0,0 +1,54 @@
+package com.MediConnect.repositories;
+
+import com.MediConnect.models.Dispensary;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.NearQuery;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class DispensaryRepositoryImpl implements DispensaryRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public GeoResults<Dispensary> findNear(Point point, double maxDistanceKm, Boolean open, Collection<String> openIds,
+                                           String service, String specialization, Pageable pageable) {
+        Query filter = new Query();
+        if (open != null) {
+            List<Object> storedIds = openIds.stream().map(DispensaryRepositoryImpl::toStoredId).toList();
+            filter.addCriteria(open ? Criteria.where("_id").in(storedIds) : Criteria.where("_id").nin(storedIds));
+        }
+        if (service != null) {
+            filter.addCriteria(Criteria.where("services").is(service));
+        }
+        if (specialization != null) {
+            filter.addCriteria(Criteria.where("specializations").is(specialization));
+        }
+
+        NearQuery nearQuery = NearQuery.near(new GeoJsonPoint(point), Metrics.KILOMETERS)
+                .spherical(true)
+                .maxDistance(new Distance(maxDistanceKm, Metrics.KILOMETERS))
+                .query(filter);
+        if (pageable.isPaged()) {
+            nearQuery.with(pageable);
+        }
+        return mongoTemplate.geoNear(nearQuery, Dispensary.class);
+    }
+
+    // String ids that look like ObjectIds are stored as ObjectIds by the mapping layer
+    private static Object toStoredId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
@@ -7,7 +7,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface QueueRepository extends MongoRepository<QueueEntry, String> {
+public interface QueueRepository extends MongoRepository<QueueEntry, String>, QueueRepositoryCustom {
     List<QueueEntry> findByDispensaryIdAndStatusOrderByPositionAsc(String dispensaryId, QueueEntry.QueueStatus status);
     List<QueueEntry> findByDoctorIdAndStatusOrderByPositionAsc(String doctorId, QueueEntry.QueueStatus status);
     List<QueueEntry> findByPatientIdOrderByCreatedAtDesc(String patientId);
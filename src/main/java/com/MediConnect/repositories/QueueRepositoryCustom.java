@@ -0,0 +1,13 @@
+package com.MediConnect.repositories;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface QueueRepositoryCustom {
+
+    /**
+     * Number of WAITING entries per dispensary, counted in one aggregation over the dispensary_status index.
+     * Dispensaries with nobody waiting are left out of the map.
+     */
+    Map<String, Integer> countWaitingByDispensary(Collection<String> dispensaryIds);
+}
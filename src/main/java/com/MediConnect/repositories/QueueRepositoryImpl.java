@@ -0,0 +1,52 @@
+package com.MediConnect.repositories;
+
+import com.MediConnect.models.QueueEntry;
+import com.mongodb.DBRef;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class QueueRepositoryImpl implements QueueRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Map<String, Integer> countWaitingByDispensary(Collection<String> dispensaryIds) {
+        Map<String, Integer> counts = new HashMap<>();
+        if (dispensaryIds.isEmpty()) {
+            return counts;
+        }
+        List<Object> storedIds = dispensaryIds.stream().map(QueueRepositoryImpl::toStoredId).toList();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("dispensary.$id").in(storedIds)
+                        .and("status").is(QueueEntry.QueueStatus.WAITING.name())),
+                // Grouped on the whole reference: a field path cannot step into $id
+                Aggregation.group("dispensary").count().as("count"));
+        for (Document result : mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(QueueEntry.class),
+                Document.class)) {
+            Object reference = result.get("_id");
+            Object id = reference instanceof DBRef dbRef ? dbRef.getId()
+                    : reference instanceof Document document ? document.get("$id")
+                    : null;
+            if (id != null) {
+                counts.put(id instanceof ObjectId objectId ? objectId.toHexString() : id.toString(),
+                        ((Number) result.get("count")).intValue());
+            }
+        }
+        return counts;
+    }
+
+    // String ids that look like ObjectIds are stored as ObjectIds by the mapping layer
+    private static Object toStoredId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
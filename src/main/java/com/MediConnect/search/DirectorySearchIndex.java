@@ -0,0 +1,299 @@
+package com.MediConnect.search;
+
+import com.MediConnect.events.EntityChangedEvent;
+import com.MediConnect.models.Dispensary;
+import com.MediConnect.models.Doctor;
+import com.MediConnect.models.User;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Full-text indexes over the dispensary and doctor directories.
+ *
+ * Dispensaries are searchable by name, specializations, services, facilities and city; doctors by
+ * name, specialization, expertise and languages. Both load on first use and are then kept current
+ * one entity at a time from local saves and deletes and from other nodes' {@link EntityChangedEvent}s.
+ * A user change re-indexes the doctor it belongs to, since doctor names live on the user. Changes made
+ * while the index is loading are re-read once the load finishes, since the load may have read an older copy.
+ */
+@Component
+@Slf4j
+public class DirectorySearchIndex extends AbstractMongoEventListener<Object> {
+
+    public static final String CITY = "city";
+    public static final String SERVICE = "service";
+    public static final String SPECIALIZATION = "specialization";
+    public static final String LANGUAGE = "language";
+
+    private static final String DISPENSARIES = "dispensaries";
+    private static final String DOCTORS = "doctors";
+    private static final String USERS = "users";
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+
+    private final InvertedIndex dispensaries = new InvertedIndex();
+    private final InvertedIndex doctors = new InvertedIndex();
+    private final Map<String, String> doctorIdByUserId = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    private volatile boolean loading;
+    private final Set<String> dispensariesChangedWhileLoading = ConcurrentHashMap.newKeySet();
+    private final Set<String> doctorsChangedWhileLoading = ConcurrentHashMap.newKeySet();
+    private final Set<String> usersChangedWhileLoading = ConcurrentHashMap.newKeySet();
+
+    public DirectorySearchIndex(MongoTemplate mongoTemplate,
+                                @Value("${mediconnect.search.enabled:true}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    public InvertedIndex.Result searchDispensaries(String query, Map<String, String> facetFilters, int limit) {
+        return ensureLoaded() ? dispensaries.search(query, facetFilters, limit) : empty();
+    }
+
+    public InvertedIndex.Result searchDoctors(String query, Map<String, String> facetFilters, int limit) {
+        return ensureLoaded() ? doctors.search(query, facetFilters, limit) : empty();
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        Object source = event.getSource();
+        if (source instanceof Dispensary dispensary) {
+            changed(dispensariesChangedWhileLoading, dispensary.getId(), () -> dispensaries.put(toDocument(dispensary)));
+        } else if (source instanceof Doctor doctor) {
+            changed(doctorsChangedWhileLoading, doctor.getId(), () -> indexDoctor(doctor));
+        } else if (source instanceof User user) {
+            changed(usersChangedWhileLoading, user.getId(), () -> userChanged(user.getId()));
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        Object id = event.getSource().get("_id");
+        if (id == null) {
+            return;
+        }
+        String stringId = id instanceof ObjectId objectId ? objectId.toHexString() : id.toString();
+        if (DISPENSARIES.equals(event.getCollectionName())) {
+            changed(dispensariesChangedWhileLoading, stringId, () -> dispensaries.remove(stringId));
+        } else if (DOCTORS.equals(event.getCollectionName())) {
+            changed(doctorsChangedWhileLoading, stringId, () -> removeDoctor(stringId));
+        }
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.type() == EntityChangedEvent.EntityType.QUEUE_ENTRY) {
+            return;
+        }
+        if (event.isInvalidateAll()) {
+            synchronized (this) {
+                loaded = false;
+            }
+            return;
+        }
+        boolean deleted = event.changeType() == EntityChangedEvent.ChangeType.DELETE;
+        switch (event.type()) {
+            case DISPENSARY -> changed(dispensariesChangedWhileLoading, event.id(), () -> {
+                if (deleted) {
+                    dispensaries.remove(event.id());
+                } else {
+                    reloadDispensary(event.id());
+                }
+            });
+            case DOCTOR -> changed(doctorsChangedWhileLoading, event.id(), () -> {
+                if (deleted) {
+                    removeDoctor(event.id());
+                } else {
+                    reloadDoctor(event.id());
+                }
+            });
+            case USER -> changed(usersChangedWhileLoading, event.id(), () -> userChanged(event.id()));
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Apply a change to a loaded index, and remember it if a load is running so it is re-read afterwards.
+     * loading is checked first: a load sets loaded before clearing loading, so no change falls in between.
+     */
+    private void changed(Set<String> changedWhileLoading, String id, Runnable apply) {
+        if (id == null) {
+            return;
+        }
+        if (loading) {
+            changedWhileLoading.add(id);
+        }
+        if (loaded) {
+            apply.run();
+        }
+    }
+
+    private boolean ensureLoaded() {
+        if (!enabled) {
+            return false;
+        }
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    loading = true;
+                    try {
+                        dispensaries.replaceAll(mongoTemplate.find(dispensaryFields(), Dispensary.class).stream()
+                                .map(DirectorySearchIndex::toDocument)
+                                .toList());
+                        doctorIdByUserId.clear();
+                        List<Doctor> allDoctors = mongoTemplate.find(doctorFields(), Doctor.class);
+                        doctors.replaceAll(List.of());
+                        allDoctors.forEach(this::indexDoctor);
+                        loaded = true;
+                        log.info("Indexed {} dispensaries and {} doctors for search", dispensaries.size(), doctors.size());
+                    } catch (RuntimeException ex) {
+                        log.warn("Could not load the directory search index", ex);
+                    } finally {
+                        loading = false;
+                    }
+                    if (loaded) {
+                        replayChangedWhileLoading();
+                    } else {
+                        dispensariesChangedWhileLoading.clear();
+                        doctorsChangedWhileLoading.clear();
+                        usersChangedWhileLoading.clear();
+                    }
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private void replayChangedWhileLoading() {
+        try {
+            drain(dispensariesChangedWhileLoading).forEach(this::reloadDispensary);
+            drain(doctorsChangedWhileLoading).forEach(this::reloadDoctor);
+            drain(usersChangedWhileLoading).forEach(this::userChanged);
+        } catch (RuntimeException ex) {
+            log.warn("Could not re-read entities changed while loading the search index, reloading later", ex);
+            loaded = false;
+        }
+    }
+
+    private static List<String> drain(Set<String> ids) {
+        List<String> drained = new ArrayList<>(ids);
+        ids.removeAll(drained);
+        return drained;
+    }
+
+    private void reloadDispensary(String dispensaryId) {
+        Dispensary dispensary = mongoTemplate.findOne(byId(dispensaryId, dispensaryFields()), Dispensary.class);
+        if (dispensary != null) {
+            dispensaries.put(toDocument(dispensary));
+        } else {
+            dispensaries.remove(dispensaryId);
+        }
+    }
+
+    private void userChanged(String userId) {
+        String doctorId = doctorIdByUserId.get(userId);
+        if (doctorId != null) {
+            reloadDoctor(doctorId);
+        }
+    }
+
+    private void reloadDoctor(String doctorId) {
+        Doctor doctor = mongoTemplate.findOne(byId(doctorId, doctorFields()), Doctor.class);
+        if (doctor != null) {
+            indexDoctor(doctor);
+        } else {
+            removeDoctor(doctorId);
+        }
+    }
+
+    private void indexDoctor(Doctor doctor) {
+        if (doctor.getId() == null) {
+            return;
+        }
+        doctorIdByUserId.values().remove(doctor.getId());
+        if (doctor.getUser() != null && doctor.getUser().getId() != null) {
+            doctorIdByUserId.put(doctor.getUser().getId(), doctor.getId());
+        }
+        doctors.put(toDocument(doctor));
+    }
+
+    private void removeDoctor(String doctorId) {
+        doctorIdByUserId.values().remove(doctorId);
+        doctors.remove(doctorId);
+    }
+
+    private static InvertedIndex.IndexedDocument toDocument(Dispensary dispensary) {
+        List<InvertedIndex.Field> fields = new ArrayList<>();
+        fields.add(new InvertedIndex.Field(dispensary.getName(), 3.0f));
+        addAll(fields, dispensary.getSpecializations(), 2.0f);
+        addAll(fields, dispensary.getServices(), 1.5f);
+        addAll(fields, dispensary.getFacilities(), 1.0f);
+        fields.add(new InvertedIndex.Field(dispensary.getCity(), 1.0f));
+
+        Map<String, List<String>> facets = new HashMap<>();
+        facets.put(CITY, dispensary.getCity() != null ? List.of(dispensary.getCity()) : List.of());
+        facets.put(SERVICE, orEmpty(dispensary.getServices()));
+        facets.put(SPECIALIZATION, orEmpty(dispensary.getSpecializations()));
+        return new InvertedIndex.IndexedDocument(dispensary.getId(), dispensary.getName(), fields, facets);
+    }
+
+    private static InvertedIndex.IndexedDocument toDocument(Doctor doctor) {
+        User user = doctor.getUser();
+        String name = user != null
+                ? String.join(" ", Objects.toString(user.getFirstName(), ""), Objects.toString(user.getLastName(), "")).trim()
+                : null;
+
+        List<InvertedIndex.Field> fields = new ArrayList<>();
+        fields.add(new InvertedIndex.Field(name, 3.0f));
+        fields.add(new InvertedIndex.Field(doctor.getSpecialization(), 2.5f));
+        addAll(fields, doctor.getExpertise(), 1.5f);
+        addAll(fields, doctor.getLanguages(), 1.0f);
+
+        Map<String, List<String>> facets = new HashMap<>();
+        facets.put(SPECIALIZATION, doctor.getSpecialization() != null ? List.of(doctor.getSpecialization()) : List.of());
+        facets.put(LANGUAGE, orEmpty(doctor.getLanguages()));
+        return new InvertedIndex.IndexedDocument(doctor.getId(), name, fields, facets);
+    }
+
+    private static void addAll(List<InvertedIndex.Field> fields, List<String> values, float weight) {
+        orEmpty(values).forEach(value -> fields.add(new InvertedIndex.Field(value, weight)));
+    }
+
+    private static List<String> orEmpty(List<String> values) {
+        return values != null ? values.stream().filter(Objects::nonNull).toList() : List.of();
+    }
+
+    private static InvertedIndex.Result empty() {
+        return new InvertedIndex.Result(List.of(), 0, Map.of());
+    }
+
+    private static Query dispensaryFields() {
+        Query query = new Query();
+        query.fields().include("name", "city", "services", "facilities", "specializations");
+        return query;
+    }
+
+    private static Query doctorFields() {
+        Query query = new Query();
+        query.fields().include("user", "specialization", "expertise", "languages");
+        return query;
+    }
+
+    private static Query byId(String id, Query query) {
+        return query.addCriteria(Criteria.where("_id").is(ObjectId.isValid(id) ? new ObjectId(id) : id));
+    }
+}
@@ -0,0 +1,88 @@
+package com.MediConnect.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cuts a snippet around the first query match in a text and reports where the matches are.
+ *
+ * Words match when their normalized form starts with the query term minus a common English suffix,
+ * close enough to the stemming of Mongo's text index that the words it matched on get marked.
+ */
+public final class Highlighter {
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final String[] SUFFIXES = {"ing", "ed", "es", "s"};
+    private static final int MIN_STEM_LENGTH = 3;
+    private static final String ELLIPSIS = "…";
+
+    public record Snippet(String text, List<int[]> highlights) {
+    }
+
+    private Highlighter() {
+    }
+
+    public static List<String> stems(String query) {
+        List<String> stems = new ArrayList<>();
+        for (String term : TextAnalyzer.tokenize(query)) {
+            String stem = term;
+            for (String suffix : SUFFIXES) {
+                if (term.endsWith(suffix) && term.length() - suffix.length() >= MIN_STEM_LENGTH) {
+                    stem = term.substring(0, term.length() - suffix.length());
+                    break;
+                }
+            }
+            stems.add(stem);
+        }
+        return stems;
+    }
+
+    /**
+     * Snippet of at most maxLength characters around the first match, or null when nothing matches.
+     * Highlights are [start, end) offsets into the snippet text.
+     */
+    public static Snippet highlight(String text, List<String> stems, int maxLength) {
+        if (text == null || stems.isEmpty()) {
+            return null;
+        }
+        List<int[]> matches = new ArrayList<>();
+        Matcher matcher = WORD.matcher(text);
+        while (matcher.find()) {
+            String word = TextAnalyzer.normalize(matcher.group());
+            for (String stem : stems) {
+                if (word.startsWith(stem)) {
+                    matches.add(new int[]{matcher.start(), matcher.end()});
+                    break;
+                }
+            }
+        }
+        if (matches.isEmpty()) {
+            return null;
+        }
+
+        // Start a little before the first match, on a word boundary
+        int start = Math.max(0, matches.get(0)[0] - maxLength / 4);
+        while (start > 0 && start < matches.get(0)[0] && !Character.isWhitespace(text.charAt(start - 1))) {
+            start++;
+        }
+        int end = Math.min(text.length(), start + maxLength);
+        while (end < text.length() && end > start && !Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (end <= matches.get(0)[1]) {
+            end = Math.min(text.length(), Math.max(matches.get(0)[1], start + maxLength));
+        }
+
+        String prefix = start > 0 ? ELLIPSIS : "";
+        String suffix = end < text.length() ? ELLIPSIS : "";
+        List<int[]> highlights = new ArrayList<>();
+        for (int[] match : matches) {
+            if (match[0] >= start && match[1] <= end) {
+                highlights.add(new int[]{match[0] - start + prefix.length(), match[1] - start + prefix.length()});
+            }
+        }
+        return new Snippet(prefix + text.substring(start, end) + suffix, highlights);
+    }
+}
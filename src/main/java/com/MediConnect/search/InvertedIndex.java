@@ -0,0 +1,203 @@
+package com.MediConnect.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index with weighted fields, prefix matching and facet counts.
+ *
+ * Every query term must match (exactly or as a prefix of an indexed term). A document scores the sum over
+ * query terms of field weight x idf, with prefix matches counting half. Documents are replaced as a whole,
+ * so keeping the index current is one put or remove per changed entity.
+ */
+public class InvertedIndex {
+
+    // Bounds the work of very short prefixes such as a single letter
+    private static final int MAX_PREFIX_EXPANSIONS = 256;
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+
+    public record Field(String text, float weight) {
+    }
+
+    public record IndexedDocument(String id, String title, List<Field> fields, Map<String, List<String>> facets) {
+    }
+
+    public record Hit(String id, String title, double score) {
+    }
+
+    public record Result(List<Hit> hits, int total, Map<String, Map<String, Integer>> facets) {
+    }
+
+    // Only read or written under the lock; replaceAll swaps in a complete new set
+    private NavigableMap<String, Map<String, Float>> postings = new TreeMap<>();
+    private Map<String, IndexedDocument> documents = new HashMap<>();
+    private Map<String, Set<String>> documentTerms = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(IndexedDocument document) {
+        Map<String, Float> terms = new HashMap<>();
+        for (Field field : document.fields()) {
+            for (String term : TextAnalyzer.tokenize(field.text())) {
+                terms.merge(term, field.weight(), Math::max);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(document.id());
+            documents.put(document.id(), document);
+            documentTerms.put(document.id(), terms.keySet());
+            terms.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(document.id(), weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace every document at once. The new index is built off-lock, so searches keep seeing the
+     * previous contents until the complete replacement is swapped in.
+     */
+    public void replaceAll(Collection<IndexedDocument> replacement) {
+        InvertedIndex rebuilt = new InvertedIndex();
+        replacement.forEach(rebuilt::put);
+
+        lock.writeLock().lock();
+        try {
+            postings = rebuilt.postings;
+            documents = rebuilt.documents;
+            documentTerms = rebuilt.documentTerms;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked matches for the query, restricted to documents whose facets contain every filter value
+     * (compared after normalization). Facet counts cover all matches, not only the returned page.
+     */
+    public Result search(String query, Map<String, String> facetFilters, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TextAnalyzer.tokenize(query)));
+
+        lock.readLock().lock();
+        try {
+            Map<String, Double> scores = null;
+            for (String term : terms) {
+                Map<String, Double> termScores = scoreTerm(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    Map<String, Double> intersection = new HashMap<>();
+                    for (Map.Entry<String, Double> entry : scores.entrySet()) {
+                        Double termScore = termScores.get(entry.getKey());
+                        if (termScore != null) {
+                            intersection.put(entry.getKey(), entry.getValue() + termScore);
+                        }
+                    }
+                    scores = intersection;
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+            if (scores == null) {
+                // No query terms: browse by facets only
+                scores = new HashMap<>();
+                for (String id : documents.keySet()) {
+                    scores.put(id, 0.0);
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>();
+            Map<String, Map<String, Integer>> facets = new TreeMap<>();
+            for (Map.Entry<String, Double> entry : scores.entrySet()) {
+                IndexedDocument document = documents.get(entry.getKey());
+                if (document == null || !matchesFilters(document, facetFilters)) {
+                    continue;
+                }
+                hits.add(new Hit(document.id(), document.title(), entry.getValue()));
+                document.facets().forEach((facet, values) -> {
+                    Map<String, Integer> counts = facets.computeIfAbsent(facet, f -> new TreeMap<>());
+                    values.forEach(value -> counts.merge(value, 1, Integer::sum));
+                });
+            }
+
+            hits.sort(Comparator.comparingDouble(Hit::score).reversed()
+                    .thenComparing(hit -> hit.title() != null ? hit.title() : ""));
+            int total = hits.size();
+            return new Result(total > limit ? List.copyOf(hits.subList(0, limit)) : hits, total, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<String, Double> scoreTerm(String term) {
+        Map<String, Double> scores = new HashMap<>();
+        int expansions = 0;
+        for (Map.Entry<String, Map<String, Float>> entry
+                : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+            if (expansions++ >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            boolean exact = entry.getKey().equals(term);
+            double idf = Math.log(1.0 + (double) documents.size() / entry.getValue().size());
+            for (Map.Entry<String, Float> posting : entry.getValue().entrySet()) {
+                double score = posting.getValue() * idf * (exact ? 1.0 : PREFIX_MATCH_FACTOR);
+                scores.merge(posting.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private static boolean matchesFilters(IndexedDocument document, Map<String, String> facetFilters) {
+        if (facetFilters == null) {
+            return true;
+        }
+        for (Map.Entry<String, String> filter : facetFilters.entrySet()) {
+            if (filter.getValue() == null) {
+                continue;
+            }
+            String wanted = TextAnalyzer.normalize(filter.getValue());
+            List<String> values = document.facets().getOrDefault(filter.getKey(), List.of());
+            if (values.stream().noneMatch(value -> TextAnalyzer.normalize(value).equals(wanted))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removeLocked(String id) {
+        documents.remove(id);
+        Set<String> terms = documentTerms.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<String, Float> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(id);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.MediConnect.search;
+
+import com.MediConnect.events.EntityChangedEvent;
+import com.MediConnect.models.Dispensary;
+import com.MediConnect.models.Doctor;
+import com.MediConnect.models.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autocomplete over dispensary names, doctor names, cities and specializations.
+ *
+ * The trie is built on first use and afterwards rebuilt off the request path: directory changes only
+ * mark it stale, and a background thread rebuilds a stale trie every rebuild-interval and swaps it in
+ * with one volatile write. Lookups never wait for a rebuild and may lag a change by up to that interval.
+ */
+@Component
+@Slf4j
+public class SuggestionIndex extends AbstractMongoEventListener<Object> {
+
+    public static final String DISPENSARY = "dispensary";
+    public static final String DOCTOR = "doctor";
+    public static final String CITY = "city";
+    public static final String SPECIALIZATION = "specialization";
+
+    private static final Set<String> SOURCE_COLLECTIONS = Set.of("dispensaries", "doctors", "users");
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration rebuildInterval;
+    private final int maxK;
+    private final ScheduledExecutorService rebuilder;
+
+    private volatile SuggestionTrie trie;
+    private volatile boolean stale;
+
+    public SuggestionIndex(MongoTemplate mongoTemplate,
+                           @Value("${mediconnect.suggest.rebuild-interval:30s}") Duration rebuildInterval,
+                           @Value("${mediconnect.suggest.max-k:10}") int maxK) {
+        this.mongoTemplate = mongoTemplate;
+        this.rebuildInterval = rebuildInterval;
+        this.maxK = maxK;
+        this.rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "suggest-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        rebuilder.scheduleWithFixedDelay(this::rebuildIfStale,
+                rebuildInterval.toMillis(), rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuilder.shutdownNow();
+    }
+
+    public int maxK() {
+        return maxK;
+    }
+
+    /**
+     * Best-weighted suggestions for the prefix, at most min(limit, max-k)
+     */
+    public List<SuggestionTrie.Suggestion> suggest(String prefix, int limit) {
+        SuggestionTrie current = trie;
+        if (current == null) {
+            synchronized (this) {
+                if (trie == null) {
+                    try {
+                        trie = build();
+                    } catch (RuntimeException ex) {
+                        log.warn("Could not build the suggestion trie", ex);
+                        return List.of();
+                    }
+                }
+                current = trie;
+            }
+        }
+        return current.suggest(prefix, Math.min(limit, maxK));
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        if (event.getSource() instanceof Dispensary || event.getSource() instanceof Doctor
+                || event.getSource() instanceof User) {
+            stale = true;
+        }
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        if (SOURCE_COLLECTIONS.contains(event.getCollectionName())) {
+            stale = true;
+        }
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.type() != EntityChangedEvent.EntityType.QUEUE_ENTRY) {
+            stale = true;
+        }
+    }
+
+    private void rebuildIfStale() {
+        if (!stale || trie == null) {
+            return;
+        }
+        // Cleared first so a change made during the build marks the new trie stale again
+        stale = false;
+        try {
+            trie = build();
+        } catch (RuntimeException ex) {
+            stale = true;
+            log.warn("Could not rebuild the suggestion trie, keeping the previous one", ex);
+        }
+    }
+
+    private SuggestionTrie build() {
+        long started = System.nanoTime();
+        List<SuggestionTrie.Suggestion> suggestions = new ArrayList<>();
+        Map<String, Double> cities = new HashMap<>();
+        Map<String, Double> specializations = new HashMap<>();
+
+        Query dispensaryQuery = new Query();
+        dispensaryQuery.fields().include("name", "city", "specializations", "rating", "totalReviews");
+        for (Dispensary dispensary : mongoTemplate.find(dispensaryQuery, Dispensary.class)) {
+            if (dispensary.getName() != null) {
+                suggestions.add(new SuggestionTrie.Suggestion(dispensary.getName(), DISPENSARY, dispensary.getId(),
+                        1 + popularity(dispensary.getRating(), dispensary.getTotalReviews())));
+            }
+            if (dispensary.getCity() != null) {
+                cities.merge(dispensary.getCity(), 1.0, Double::sum);
+            }
+            if (dispensary.getSpecializations() != null) {
+                dispensary.getSpecializations().stream().filter(Objects::nonNull)
+                        .forEach(specialization -> specializations.merge(specialization, 1.0, Double::sum));
+            }
+        }
+
+        Query doctorQuery = new Query();
+        doctorQuery.fields().include("user", "specialization", "rating", "totalReviews", "totalConsultations");
+        for (Doctor doctor : mongoTemplate.find(doctorQuery, Doctor.class)) {
+            User user = doctor.getUser();
+            if (user != null && (user.getFirstName() != null || user.getLastName() != null)) {
+                String name = String.join(" ", Objects.toString(user.getFirstName(), ""),
+                        Objects.toString(user.getLastName(), "")).trim();
+                int consultations = doctor.getTotalConsultations() != null ? doctor.getTotalConsultations() : 0;
+                suggestions.add(new SuggestionTrie.Suggestion(name, DOCTOR, doctor.getId(),
+                        1 + popularity(doctor.getRating(), doctor.getTotalReviews()) + Math.log1p(consultations)));
+            }
+            if (doctor.getSpecialization() != null) {
+                specializations.merge(doctor.getSpecialization(), 1.0, Double::sum);
+            }
+        }
+
+        // Cities and specializations are ranked by how many dispensaries and doctors they lead to
+        cities.forEach((city, count) -> suggestions.add(new SuggestionTrie.Suggestion(city, CITY, null, count)));
+        specializations.forEach((specialization, count) ->
+                suggestions.add(new SuggestionTrie.Suggestion(specialization, SPECIALIZATION, null, count)));
+
+        SuggestionTrie built = SuggestionTrie.build(suggestions, maxK);
+        log.debug("Built suggestion trie of {} entries in {} ms", built.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return built;
+    }
+
+    // Rating damped by review count, so one five-star review does not outrank hundreds of four-star ones
+    private static double popularity(Double rating, Integer reviews) {
+        return (rating != null ? rating : 0) * Math.log1p(reviews != null ? reviews : 0);
+    }
+}
@@ -0,0 +1,178 @@
+package com.MediConnect.search;
+
+import java.util.*;
+
+/**
+ * Immutable prefix trie answering top-k autocomplete lookups in time proportional to the prefix length.
+ *
+ * Nodes are flattened into parallel arrays with each node's children contiguous and sorted by character,
+ * so a step is a binary search, and every node stores the indexes of its best suggestions, so no subtree
+ * is walked at query time. Each suggestion is reachable from its full text and from the start of each of
+ * its words ("smith" finds "John Smith").
+ */
+public final class SuggestionTrie {
+
+    public record Suggestion(String text, String type, String id, double weight) {
+    }
+
+    private static final int[] NONE = new int[0];
+
+    private final Suggestion[] suggestions;
+    private final char[] labels;
+    private final int[] firstChild;
+    private final int[] childCount;
+    private final int[][] best;
+
+    private SuggestionTrie(Suggestion[] suggestions, char[] labels, int[] firstChild, int[] childCount, int[][] best) {
+        this.suggestions = suggestions;
+        this.labels = labels;
+        this.firstChild = firstChild;
+        this.childCount = childCount;
+        this.best = best;
+    }
+
+    public static SuggestionTrie empty() {
+        return build(List.of(), 1);
+    }
+
+    /**
+     * Build a trie keeping up to maxK suggestions per prefix, best weight first
+     */
+    public static SuggestionTrie build(Collection<Suggestion> input, int maxK) {
+        Suggestion[] suggestions = input.stream()
+                .sorted(Comparator.comparingDouble(Suggestion::weight).reversed().thenComparing(Suggestion::text))
+                .toArray(Suggestion[]::new);
+
+        // Index order is rank order, so the best of any set of suggestions is its smallest indexes
+        BuildNode root = new BuildNode();
+        for (int index = 0; index < suggestions.length; index++) {
+            String key = TextAnalyzer.normalize(suggestions[index].text());
+            for (int start = 0; start < key.length(); start++) {
+                if (start == 0 || !Character.isLetterOrDigit(key.charAt(start - 1)) && Character.isLetterOrDigit(key.charAt(start))) {
+                    root.insert(key, start, index);
+                }
+            }
+        }
+
+        List<BuildNode> order = new ArrayList<>();
+        order.add(root);
+        // Breadth-first numbering keeps each node's children in one contiguous run
+        for (int i = 0; i < order.size(); i++) {
+            order.addAll(order.get(i).children.values());
+        }
+
+        int size = order.size();
+        char[] labels = new char[size];
+        int[] firstChild = new int[size];
+        int[] childCount = new int[size];
+        int[][] best = new int[size][];
+        int next = 1;
+        for (int i = 0; i < size; i++) {
+            BuildNode node = order.get(i);
+            labels[i] = node.label;
+            firstChild[i] = next;
+            childCount[i] = node.children.size();
+            next += node.children.size();
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            best[i] = order.get(i).best(maxK);
+        }
+        return new SuggestionTrie(suggestions, labels, firstChild, childCount, best);
+    }
+
+    public int size() {
+        return suggestions.length;
+    }
+
+    /**
+     * Up to limit suggestions whose text, or one of its words, starts with the prefix
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = TextAnalyzer.normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        int node = 0;
+        for (int i = 0; i < key.length() && node >= 0; i++) {
+            node = child(node, key.charAt(i));
+        }
+        if (node < 0) {
+            return List.of();
+        }
+        int[] indexes = best[node];
+        int count = Math.min(limit, indexes.length);
+        List<Suggestion> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(suggestions[indexes[i]]);
+        }
+        return result;
+    }
+
+    private int child(int node, char label) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (labels[middle] < label) {
+                low = middle + 1;
+            } else if (labels[middle] > label) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private static final class BuildNode {
+        private final char label;
+        private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+        private final TreeSet<Integer> terminals = new TreeSet<>();
+        private int[] best;
+
+        BuildNode() {
+            this('\0');
+        }
+
+        BuildNode(char label) {
+            this.label = label;
+        }
+
+        void insert(String key, int start, int index) {
+            BuildNode node = this;
+            for (int i = start; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), BuildNode::new);
+            }
+            node.terminals.add(index);
+        }
+
+        // Called children first, so each child's list is ready
+        int[] best(int maxK) {
+            if (terminals.isEmpty() && children.size() == 1) {
+                // Chains of single-child nodes share one array instead of copying it down the chain
+                best = children.firstEntry().getValue().best;
+                children.firstEntry().getValue().best = null;
+                return best;
+            }
+            TreeSet<Integer> merged = new TreeSet<>();
+            for (Integer index : terminals) {
+                merged.add(index);
+                if (merged.size() >= maxK) {
+                    break;
+                }
+            }
+            for (BuildNode child : children.values()) {
+                for (int index : child.best) {
+                    merged.add(index);
+                }
+                while (merged.size() > maxK) {
+                    merged.pollLast();
+                }
+            }
+            best = merged.isEmpty() ? NONE : merged.stream().mapToInt(Integer::intValue).toArray();
+            // Only the summary is needed from here on
+            children.values().forEach(child -> child.best = null);
+            return best;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.MediConnect.security;
+
+import com.MediConnect.events.EntityChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Resolves the authenticated principal for a verified JWT.
+ *
+ * cache    - load the user once, then serve it from a short-TTL cache keyed by user id (default)
+ * claims   - build the principal from the signed subject, email and role claims, no lookup at all;
+ *            a deactivated user or role change only takes effect when the token expires
+ * database - load the user on every request
+ */
+@Component
+@Slf4j
+public class PrincipalCache {
+
+    private final CustomUserDetailsService userDetailsService;
+    private final String principalSource;
+    private final Cache<String, CustomUserDetails> principals;
+
+    public PrincipalCache(CustomUserDetailsService userDetailsService,
+                          @Value("${mediconnect.security.principal-source:cache}") String principalSource,
+                          @Value("${mediconnect.security.principal-cache.maximum-size:10000}") long maximumSize,
+                          @Value("${mediconnect.security.principal-cache.ttl:60s}") Duration ttl,
+                          MeterRegistry meterRegistry) {
+        this.userDetailsService = userDetailsService;
+        this.principalSource = principalSource.toLowerCase();
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "principals");
+        log.info("JWT principal source: {}", this.principalSource);
+    }
+
+    public CustomUserDetails resolve(Claims claims) {
+        String userId = claims.getSubject();
+        return switch (principalSource) {
+            case "claims" -> fromClaims(claims);
+            case "database" -> load(userId);
+            default -> principals.get(userId, this::load);
+        };
+    }
+
+    public void evict(String userId) {
+        principals.invalidate(userId);
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.type() != EntityChangedEvent.EntityType.USER) {
+            return;
+        }
+        if (event.isInvalidateAll()) {
+            principals.invalidateAll();
+        } else {
+            evict(event.id());
+        }
+    }
+
+    private CustomUserDetails load(String userId) {
+        return (CustomUserDetails) userDetailsService.loadUserById(userId);
+    }
+
+    private CustomUserDetails fromClaims(Claims claims) {
+        return new CustomUserDetails(
+                claims.getSubject(),
+                claims.get("email", String.class),
+                null,
+                claims.get("role", String.class),
+                true
+        );
+    }
+}
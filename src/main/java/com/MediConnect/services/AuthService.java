@@ -1,11 +1,13 @@
 package com.MediConnect.services;
 
+import com.MediConnect.cache.EntityCache;
 import com.MediConnect.dto.auth.*;
 import com.MediConnect.exceptions.ValidationException;
 import com.MediConnect.models.User;
 import com.MediConnect.models.Patient;
 import com.MediConnect.models.Doctor;
 import com.MediConnect.repositories.*;
+import com.MediConnect.security.CustomUserDetails;
 import com.MediConnect.security.JwtTokenProvider;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -26,6 +28,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider tokenProvider;
+    private final EntityCache entityCache;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -62,15 +65,12 @@ public class AuthService {
             Doctor doctor = new Doctor();
             doctor.setUser(savedUser);
             Doctor savedDoctor = doctorRepository.save(doctor);
+            entityCache.doctorSaved(savedDoctor);
             profileId = savedDoctor.getId();
         }
 
-        // Generate token
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-        );
-
-        String token = tokenProvider.generateToken(authentication);
+        // The password was hashed just above, so the token is issued without verifying it again
+        String token = tokenProvider.generateToken(CustomUserDetails.create(savedUser));
 
         return AuthResponse.builder()
                 .token(token)
@@ -1,6 +1,11 @@
 package com.MediConnect.services;
 
 import com.MediConnect.MediConnect.dto.DispensaryDTO;
+import com.MediConnect.MediConnect.dto.DispensaryRecommendationDTO;
+import com.MediConnect.cache.DispensaryGeoIndex;
+import com.MediConnect.cache.EntityCache;
+import com.MediConnect.cache.OpeningHoursIndex;
+import com.MediConnect.events.DispensaryStatusChangedEvent;
 import com.MediConnect.exceptions.ResourceNotFoundException;
 import com.MediConnect.exceptions.ValidationException;
 import com.MediConnect.models.Dispensary;
@@ -8,18 +13,23 @@ import com.MediConnect.models.Doctor;
 import com.MediConnect.models.User;
 import com.MediConnect.repositories.DispensaryRepository;
 import com.MediConnect.repositories.DoctorRepository;
+import com.MediConnect.repositories.QueueRepository;
 import com.MediConnect.repositories.UserRepository;
+import com.MediConnect.utils.QueueCalculator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.geo.Distance;
-import org.springframework.data.geo.Metrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.geo.GeoResults;
 import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,16 +37,31 @@ import java.util.stream.Collectors;
 @Slf4j
 public class DispensaryService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final DispensaryRepository dispensaryRepository;
     private final DoctorRepository doctorRepository;
+    private final QueueRepository queueRepository;
     private final UserRepository userRepository;
+    private final EntityCache entityCache;
+    private final OpeningHoursIndex openingHoursIndex;
+    private final DispensaryGeoIndex geoIndex;
+    private final QueueCalculator queueCalculator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${mediconnect.recommend.travel-speed-kmh:30}")
+    private double travelSpeedKmh;
+
+    // Ranking cost of a dispensary with nobody available to see patients
+    @Value("${mediconnect.recommend.no-doctor-wait-minutes:120}")
+    private int noDoctorWaitMinutes;
 
     /**
      * Get dispensary by ID
      */
     public DispensaryDTO getDispensaryById(String id) {
         log.info("Fetching dispensary with ID: {}", id);
-        Dispensary dispensary = dispensaryRepository.findById(id)
+        Dispensary dispensary = entityCache.findDispensary(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Dispensary not found with ID: " + id));
         return convertToDTO(dispensary);
     }
@@ -53,35 +78,140 @@ public class DispensaryService {
     }
 
     /**
-     * Get all currently open dispensaries
+     * Get all currently open dispensaries (open flag set and within working hours)
      */
     public List<DispensaryDTO> getOpenDispensaries() {
         log.info("Fetching all open dispensaries");
-        List<Dispensary> openDispensaries = dispensaryRepository.findByIsOpenTrue();
-        return openDispensaries.stream()
+        List<String> openIds = openingHoursIndex.openAt(openingHoursIndex.now(), null);
+        if (openIds.isEmpty()) {
+            return List.of();
+        }
+        return dispensaryRepository.findAllById(openIds).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
     /**
-     * Find nearby dispensaries based on geolocation
+     * Ids of the dispensaries open at the given local time (now if null), optionally within the given ids
+     */
+    public List<String> getOpenDispensaryIds(LocalDateTime at, List<String> ids) {
+        return openingHoursIndex.openAt(at != null ? at : openingHoursIndex.now(), ids);
+    }
+
+    /**
+     * Find nearby dispensaries based on geolocation, nearest first, with their distance, one page at a time.
+     * Unfiltered searches are answered by the in-memory geo index; filtered ones, or all of them while the
+     * index is unavailable, by a $geoNear aggregation with the filters inside the stage.
+     */
+    public List<DispensaryDTO> getNearbyDispensaries(double latitude, double longitude, double radiusKm,
+                                                     Boolean open, String service, String specialization,
+                                                     int page, int size) {
+        validateNearbySearch(radiusKm, page, size);
+        return findNearby(latitude, longitude, radiusKm, open, service, specialization, PageRequest.of(page, size));
+    }
+
+    /**
+     * Every dispensary matching a nearby search, unpaged; used to fill the geo-tile response cache
      */
-    public List<DispensaryDTO> getNearbyDispensaries(double latitude, double longitude, double radiusKm) {
+    public List<DispensaryDTO> getAllNearbyDispensaries(double latitude, double longitude, double radiusKm,
+                                                        Boolean open, String service, String specialization) {
+        return findNearby(latitude, longitude, radiusKm, open, service, specialization, Pageable.unpaged());
+    }
+
+    public void validateNearbySearch(double radiusKm, int page, int size) {
+        if (radiusKm <= 0 || page < 0 || size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new ValidationException("Radius must be positive, page non-negative and size between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    private List<DispensaryDTO> findNearby(double latitude, double longitude, double radiusKm,
+                                           Boolean open, String service, String specialization, Pageable pageable) {
         log.info("Searching for dispensaries near lat: {}, long: {} within {} km", latitude, longitude, radiusKm);
 
-        // MongoDB uses [longitude, latitude] order (GeoJSON format)
-        Point location = new Point(longitude, latitude);
-        Distance distance = new Distance(radiusKm, Metrics.KILOMETERS);
+        if (open == null && service == null && specialization == null) {
+            Integer end = pageable.isPaged() ? (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize()) : null;
+            Optional<List<DispensaryGeoIndex.Hit>> hits = geoIndex.withinRadius(latitude, longitude, radiusKm, end);
+            if (hits.isPresent()) {
+                List<DispensaryGeoIndex.Hit> all = hits.get();
+                int from = pageable.isPaged() ? (int) Math.min(all.size(), pageable.getOffset()) : 0;
+                return toDistanceDTOs(all.subList(from, all.size()));
+            }
+        }
 
-        List<Dispensary> nearbyDispensaries = dispensaryRepository.findByLocationNear(location, distance);
+        List<String> openIds = open != null ? openingHoursIndex.openAt(openingHoursIndex.now(), null) : null;
+        GeoResults<Dispensary> results = dispensaryRepository.findNear(new Point(longitude, latitude), radiusKm,
+                open, openIds, service, specialization, pageable);
 
-        log.info("Found {} dispensaries within {} km", nearbyDispensaries.size(), radiusKm);
+        log.info("Found {} dispensaries within {} km", results.getContent().size(), radiusKm);
 
-        return nearbyDispensaries.stream()
-                .map(this::convertToDTO)
+        return results.getContent().stream()
+                .map(result -> {
+                    DispensaryDTO dto = convertToDTO(result.getContent());
+                    dto.setDistanceKm(result.getDistance().getValue());
+                    return dto;
+                })
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Rank the dispensaries within radiusKm by estimated travel plus queue wait time and return the best k.
+     *
+     * Candidates are visited nearest first and the search stops once travel time alone exceeds the
+     * k-th best total, so only the dispensaries that can still make the top k are loaded.
+     */
+    public List<DispensaryRecommendationDTO> recommendDispensaries(double latitude, double longitude, double radiusKm,
+                                                                   int k, boolean includeClosed) {
+        log.info("Recommending {} dispensaries near lat: {}, long: {} within {} km", k, latitude, longitude, radiusKm);
+        if (radiusKm <= 0 || k <= 0) {
+            throw new ValidationException("Radius and k must be positive");
+        }
+
+        LocalDateTime now = openingHoursIndex.now();
+        List<DispensaryGeoIndex.Hit> hits = geoIndex.withinRadius(latitude, longitude, radiusKm, null)
+                .orElseGet(() -> dispensaryRepository.findNear(new Point(longitude, latitude), radiusKm,
+                                null, null, null, null, Pageable.unpaged()).getContent().stream()
+                        .map(result -> new DispensaryGeoIndex.Hit(result.getContent().getId(), result.getDistance().getValue()))
+                        .toList());
+
+        Set<String> open = new HashSet<>(openingHoursIndex.openAt(now, hits.stream().map(DispensaryGeoIndex.Hit::id).toList()));
+        if (!includeClosed) {
+            hits = hits.stream().filter(hit -> open.contains(hit.id())).toList();
+        }
+
+        // Worst of the current top k on top, so it can be replaced
+        PriorityQueue<DispensaryRecommendationDTO> best = new PriorityQueue<>(
+                Comparator.comparingInt(DispensaryRecommendationDTO::getEstimatedTotalMinutes).reversed());
+        int batchSize = Math.max(16, 2 * k);
+        for (int from = 0; from < hits.size(); from += batchSize) {
+            List<DispensaryGeoIndex.Hit> batch = hits.subList(from, Math.min(hits.size(), from + batchSize));
+            if (best.size() == k && travelMinutes(batch.get(0).distanceKm()) >= best.peek().getEstimatedTotalMinutes()) {
+                break;
+            }
+
+            List<String> ids = batch.stream().map(DispensaryGeoIndex.Hit::id).toList();
+            Map<String, Dispensary> dispensaries = new HashMap<>();
+            entityCache.findDispensaries(ids).forEach(dispensary -> dispensaries.put(dispensary.getId(), dispensary));
+            // Counted from the queue itself, one aggregation per batch
+            Map<String, Integer> waiting = queueRepository.countWaitingByDispensary(ids);
+            for (DispensaryGeoIndex.Hit hit : batch) {
+                Dispensary dispensary = dispensaries.get(hit.id());
+                if (dispensary == null) {
+                    continue;
+                }
+                best.offer(toRecommendation(dispensary, hit.distanceKm(), open.contains(hit.id()),
+                        waiting.getOrDefault(hit.id(), 0)));
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<DispensaryRecommendationDTO> ranked = new ArrayList<>(best);
+        ranked.sort(Comparator.comparingInt(DispensaryRecommendationDTO::getEstimatedTotalMinutes)
+                .thenComparing(recommendation -> recommendation.getDispensary().getDistanceKm()));
+        return ranked;
+    }
+
     /**
      * Search dispensaries by city
      */
@@ -119,7 +249,7 @@ public class DispensaryService {
 
         // Set location (MongoDB uses [longitude, latitude])
         if (dispensaryDTO.getLongitude() != null && dispensaryDTO.getLatitude() != null) {
-            dispensary.setLocation(new double[]{dispensaryDTO.getLongitude(), dispensaryDTO.getLatitude()});
+            dispensary.setLocation(new GeoJsonPoint(dispensaryDTO.getLongitude(), dispensaryDTO.getLatitude()));
         }
 
         dispensary.setServices(dispensaryDTO.getServices());
@@ -130,6 +260,7 @@ public class DispensaryService {
         dispensary.setTotalReviews(0);
 
         Dispensary savedDispensary = dispensaryRepository.save(dispensary);
+        entityCache.dispensarySaved(savedDispensary);
         log.info("Dispensary created successfully with ID: {}", savedDispensary.getId());
 
         return convertToDTO(savedDispensary);
@@ -164,7 +295,7 @@ public class DispensaryService {
 
         // Update location if both coordinates are provided
         if (dispensaryDTO.getLatitude() != null && dispensaryDTO.getLongitude() != null) {
-            dispensary.setLocation(new double[]{dispensaryDTO.getLongitude(), dispensaryDTO.getLatitude()});
+            dispensary.setLocation(new GeoJsonPoint(dispensaryDTO.getLongitude(), dispensaryDTO.getLatitude()));
         }
 
         // Update services and facilities
@@ -176,6 +307,7 @@ public class DispensaryService {
         }
 
         Dispensary updatedDispensary = dispensaryRepository.save(dispensary);
+        entityCache.dispensarySaved(updatedDispensary);
         log.info("Dispensary updated successfully: {}", id);
 
         return convertToDTO(updatedDispensary);
@@ -200,6 +332,9 @@ public class DispensaryService {
         }
 
         Dispensary updated = dispensaryRepository.save(dispensary);
+        entityCache.dispensarySaved(updated);
+        eventPublisher.publishEvent(new DispensaryStatusChangedEvent(updated.getId(), isOpen,
+                updated.getUpdatedAt() != null ? updated.getUpdatedAt() : LocalDateTime.now()));
         log.info("Dispensary status updated successfully");
 
         return convertToDTO(updated);
@@ -218,6 +353,7 @@ public class DispensaryService {
         dispensary.setWorkingHours(workingHours);
 
         Dispensary updated = dispensaryRepository.save(dispensary);
+        entityCache.dispensarySaved(updated);
         log.info("Working hours updated successfully");
 
         return convertToDTO(updated);
@@ -245,6 +381,7 @@ public class DispensaryService {
         }
 
         Dispensary updated = dispensaryRepository.save(dispensary);
+        entityCache.dispensarySaved(updated);
         log.info("Doctor added successfully");
 
         return convertToDTO(updated);
@@ -265,6 +402,7 @@ public class DispensaryService {
         }
 
         Dispensary updated = dispensaryRepository.save(dispensary);
+        entityCache.dispensarySaved(updated);
         log.info("Doctor removed successfully");
 
         return convertToDTO(updated);
@@ -281,7 +419,7 @@ public class DispensaryService {
                 .orElseThrow(() -> new ResourceNotFoundException("Dispensary not found"));
 
         dispensary.setCurrentQueueLength(Math.max(0, queueLength));
-        dispensaryRepository.save(dispensary);
+        entityCache.dispensarySaved(dispensaryRepository.save(dispensary));
     }
 
     /**
@@ -308,6 +446,7 @@ public class DispensaryService {
         dispensary.setTotalReviews(totalReviews);
 
         Dispensary updated = dispensaryRepository.save(dispensary);
+        entityCache.dispensarySaved(updated);
         log.info("Rating updated. New average: {}, Total reviews: {}", updated.getRating(), updated.getTotalReviews());
 
         return convertToDTO(updated);
@@ -325,6 +464,7 @@ public class DispensaryService {
         }
 
         dispensaryRepository.deleteById(id);
+        entityCache.dispensaryDeleted(id);
         log.info("Dispensary deleted successfully");
     }
 
@@ -332,45 +472,52 @@ public class DispensaryService {
      * Check if dispensary is currently open based on working hours
      */
     public boolean isDispensaryOpen(String id) {
-        Dispensary dispensary = dispensaryRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Dispensary not found"));
-
-        if (!dispensary.isOpen()) {
-            return false;
-        }
-
-        // Check working hours
-        if (dispensary.getWorkingHours() == null) {
-            return true; // Assume 24/7 if no hours specified
-        }
-
-        LocalTime now = LocalTime.now();
-        String dayOfWeek = LocalDateTime.now().getDayOfWeek().toString().toLowerCase();
-
-        // Get today's schedule
-        Dispensary.DaySchedule schedule = getTodaySchedule(dispensary.getWorkingHours(), dayOfWeek);
-
-        if (schedule == null || !schedule.isOpen()) {
-            return false;
-        }
-
-        return !now.isBefore(schedule.getOpenTime()) && !now.isAfter(schedule.getCloseTime());
+        LocalDateTime now = openingHoursIndex.now();
+        return openingHoursIndex.isOpenAt(id, now).orElseGet(() -> {
+            Dispensary dispensary = entityCache.findDispensary(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Dispensary not found"));
+            openingHoursIndex.put(dispensary);
+            return openingHoursIndex.isOpenAt(id, now).orElse(false);
+        });
     }
 
     /**
-     * Helper method to get today's schedule
+     * DTOs for geo index hits, in hit order, with their distance
      */
-    private Dispensary.DaySchedule getTodaySchedule(Dispensary.WorkingHours hours, String day) {
-        return switch (day) {
-            case "monday" -> hours.getMonday();
-            case "tuesday" -> hours.getTuesday();
-            case "wednesday" -> hours.getWednesday();
-            case "thursday" -> hours.getThursday();
-            case "friday" -> hours.getFriday();
-            case "saturday" -> hours.getSaturday();
-            case "sunday" -> hours.getSunday();
-            default -> null;
-        };
+    private List<DispensaryDTO> toDistanceDTOs(List<DispensaryGeoIndex.Hit> hits) {
+        Map<String, Double> distances = new HashMap<>();
+        hits.forEach(hit -> distances.put(hit.id(), hit.distanceKm()));
+
+        return entityCache.findDispensaries(hits.stream().map(DispensaryGeoIndex.Hit::id).toList()).stream()
+                .map(dispensary -> {
+                    DispensaryDTO dto = convertToDTO(dispensary);
+                    dto.setDistanceKm(distances.get(dispensary.getId()));
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private DispensaryRecommendationDTO toRecommendation(Dispensary dispensary, double distanceKm, boolean openNow,
+                                                         int queueLength) {
+        DispensaryDTO dto = convertToDTO(dispensary);
+        dto.setDistanceKm(distanceKm);
+        dto.setCurrentQueueLength(queueLength);
+
+        Integer waitMinutes = queueCalculator.estimateDispensaryWaitTime(queueLength, dispensary.getDoctors());
+        int travelMinutes = travelMinutes(distanceKm);
+
+        DispensaryRecommendationDTO recommendation = new DispensaryRecommendationDTO();
+        recommendation.setDispensary(dto);
+        recommendation.setOpenNow(openNow);
+        recommendation.setAvailableDoctors(dispensary.getAvailableDoctorsCount());
+        recommendation.setEstimatedTravelMinutes(travelMinutes);
+        recommendation.setEstimatedWaitMinutes(waitMinutes);
+        recommendation.setEstimatedTotalMinutes(travelMinutes + (waitMinutes != null ? waitMinutes : noDoctorWaitMinutes));
+        return recommendation;
+    }
+
+    private int travelMinutes(double distanceKm) {
+        return (int) Math.ceil(distanceKm / travelSpeedKmh * 60);
     }
 
     /**
@@ -392,10 +539,10 @@ public class DispensaryService {
         dto.setPhoneNumber(dispensary.getPhoneNumber());
         dto.setEmail(dispensary.getEmail());
 
-        // Convert location from [longitude, latitude] to separate fields
-        if (dispensary.getLocation() != null && dispensary.getLocation().length == 2) {
-            dto.setLongitude(dispensary.getLocation()[0]);
-            dto.setLatitude(dispensary.getLocation()[1]);
+        // Convert the GeoJSON point (x = longitude, y = latitude) to separate fields
+        if (dispensary.getLocation() != null) {
+            dto.setLongitude(dispensary.getLocation().getX());
+            dto.setLatitude(dispensary.getLocation().getY());
         }
 
         dto.setServices(dispensary.getServices());
@@ -1,12 +1,15 @@
 package com.MediConnect.services;
 
 import com.MediConnect.MediConnect.dto.DoctorDTO;
+import com.MediConnect.cache.EntityCache;
+import com.MediConnect.events.DoctorAvailabilityChangedEvent;
 import com.MediConnect.exceptions.ResourceNotFoundException;
 import com.MediConnect.models.Doctor;
 import com.MediConnect.models.User;
 import com.MediConnect.repositories.DoctorRepository;
 import com.MediConnect.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -19,9 +22,11 @@ public class DoctorService {
 
     private final DoctorRepository doctorRepository;
     private final UserRepository userRepository;
+    private final EntityCache entityCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     public DoctorDTO getDoctorById(String id) {
-        Doctor doctor = doctorRepository.findById(id)
+        Doctor doctor = entityCache.findDoctor(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Doctor not found"));
         return convertToDTO(doctor);
     }
@@ -98,6 +103,7 @@ public class DoctorService {
         }
 
         Doctor saved = doctorRepository.save(doctor);
+        entityCache.doctorSaved(saved);
         return convertToDTO(saved);
     }
 
@@ -112,6 +118,9 @@ public class DoctorService {
         doctor.setStatusLastUpdated(LocalDateTime.now());
 
         Doctor saved = doctorRepository.save(doctor);
+        entityCache.doctorSaved(saved);
+        eventPublisher.publishEvent(new DoctorAvailabilityChangedEvent(
+                saved.getId(), availabilityStatus.name(), saved.getStatusLastUpdated()));
         return convertToDTO(saved);
     }
 
@@ -1,15 +1,32 @@
 package com.MediConnect.services;
 
 import com.MediConnect.MediConnect.dto.MedicalRecordDTO;
+import com.MediConnect.MediConnect.dto.MedicalRecordSearchResultDTO;
+import com.MediConnect.cache.EntityCache;
 import com.MediConnect.exceptions.ResourceNotFoundException;
+import com.MediConnect.exceptions.ValidationException;
 import com.MediConnect.models.*;
 import com.MediConnect.repositories.*;
+import com.MediConnect.search.Highlighter;
+import com.MediConnect.security.CustomUserDetails;
+import com.MediConnect.utils.ParallelLookup;
 import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,18 +35,31 @@ public class MedicalRecordService {
 
     private final MedicalRecordRepository medicalRecordRepository;
     private final PatientRepository patientRepository;
-    private final DoctorRepository doctorRepository;
-    private final DispensaryRepository dispensaryRepository;
+    private final ParallelLookup parallelLookup;
+    private final EntityCache entityCache;
+    private final MongoTemplate mongoTemplate;
 
-    @Transactional
+    public static final int MAX_SEARCH_PAGE_SIZE = 50;
+    private static final int SNIPPET_LENGTH = 160;
+
+    // Not @Transactional: the reads below run on ParallelLookup threads, outside any transaction
     public MedicalRecordDTO createMedicalRecord(MedicalRecordDTO recordDTO) {
-        Patient patient = patientRepository.findById(recordDTO.getPatientId())
+        CompletableFuture<Optional<Patient>> patientLookup =
+                parallelLookup.submit(() -> patientRepository.findById(recordDTO.getPatientId()));
+        CompletableFuture<Optional<Doctor>> doctorLookup =
+                parallelLookup.submit(() -> entityCache.findDoctor(recordDTO.getDoctorId()));
+        CompletableFuture<Optional<Dispensary>> dispensaryLookup =
+                parallelLookup.submit(() -> entityCache.findDispensary(recordDTO.getDispensaryId()));
+
+        parallelLookup.awaitAll(patientLookup, doctorLookup, dispensaryLookup);
+
+        Patient patient = ParallelLookup.result(patientLookup)
                 .orElseThrow(() -> new ResourceNotFoundException("Patient not found"));
 
-        Doctor doctor = doctorRepository.findById(recordDTO.getDoctorId())
+        Doctor doctor = ParallelLookup.result(doctorLookup)
                 .orElseThrow(() -> new ResourceNotFoundException("Doctor not found"));
 
-        Dispensary dispensary = dispensaryRepository.findById(recordDTO.getDispensaryId())
+        Dispensary dispensary = ParallelLookup.result(dispensaryLookup)
                 .orElseThrow(() -> new ResourceNotFoundException("Dispensary not found"));
 
         MedicalRecord record = new MedicalRecord();
@@ -106,6 +136,53 @@ public class MedicalRecordService {
         return records.stream().map(this::convertToDTO).collect(Collectors.toList());
     }
 
+    /**
+     * Ranked full-text search over one patient's records, optionally narrowed to a doctor or dispensary.
+     * Served by the patient-prefixed text index; hits carry snippets instead of the full record.
+     * Patients may only search their own history.
+     */
+    public MedicalRecordSearchResultDTO searchPatientRecords(CustomUserDetails caller, String patientId, String query,
+                                                             String doctorId, String dispensaryId, int page, int size) {
+        checkOwnRecords(caller, patientId);
+        if (query == null || query.isBlank()) {
+            throw new ValidationException("Search query must not be empty");
+        }
+        if (page < 0 || size <= 0 || size > MAX_SEARCH_PAGE_SIZE) {
+            throw new ValidationException("Page must be >= 0 and size between 1 and " + MAX_SEARCH_PAGE_SIZE);
+        }
+
+        Criteria scope = Criteria.where("patient.$id").is(toStoredId(patientId));
+        if (doctorId != null) {
+            scope = scope.and("doctor.$id").is(toStoredId(doctorId));
+        }
+        if (dispensaryId != null) {
+            scope = scope.and("dispensary.$id").is(toStoredId(dispensaryId));
+        }
+        TextCriteria text = TextCriteria.forDefaultLanguage().matching(query);
+
+        long total = mongoTemplate.count(TextQuery.queryText(text).addCriteria(scope), MedicalRecord.class);
+
+        Query pageQuery = TextQuery.queryText(text).sortByScore().includeScore()
+                .addCriteria(scope)
+                .with(Sort.by(Sort.Direction.DESC, "visitDate"))
+                .skip((long) page * size)
+                .limit(size);
+        pageQuery.fields().include("visitDate", "doctor", "chiefComplaint", "symptoms", "diagnosis", "notes",
+                "prescriptions.medicationName", "labTests");
+        List<MedicalRecord> records = total > (long) page * size
+                ? mongoTemplate.find(pageQuery, MedicalRecord.class)
+                : List.of();
+
+        List<String> stems = Highlighter.stems(query);
+        MedicalRecordSearchResultDTO result = new MedicalRecordSearchResultDTO();
+        result.setQuery(query);
+        result.setPage(page);
+        result.setSize(size);
+        result.setTotal(total);
+        result.setHits(records.stream().map(record -> toSearchHit(record, stems)).collect(Collectors.toList()));
+        return result;
+    }
+
     @Transactional
     public MedicalRecordDTO updateMedicalRecord(String id, MedicalRecordDTO recordDTO) {
         MedicalRecord record = medicalRecordRepository.findById(id)
@@ -224,4 +301,63 @@ public class MedicalRecordService {
 
         return dto;
     }
-}
\ No newline at end of file
+
+    private void checkOwnRecords(CustomUserDetails caller, String patientId) {
+        if (caller != null && !"PATIENT".equals(caller.getRole())) {
+            return;
+        }
+        boolean own = caller != null && patientRepository.findByUserId(caller.getId())
+                .map(patient -> patient.getId().equals(patientId))
+                .orElse(false);
+        if (!own) {
+            throw new AccessDeniedException("Cannot access another patient's medical records");
+        }
+    }
+
+    private MedicalRecordSearchResultDTO.HitDTO toSearchHit(MedicalRecord record, List<String> stems) {
+        MedicalRecordSearchResultDTO.HitDTO hit = new MedicalRecordSearchResultDTO.HitDTO();
+        hit.setRecordId(record.getId());
+        hit.setVisitDate(record.getVisitDate());
+        hit.setDiagnosis(record.getDiagnosis());
+        hit.setScore(record.getScore());
+        if (record.getDoctor() != null) {
+            hit.setDoctorId(record.getDoctor().getId());
+            User doctorUser = record.getDoctor().getUser();
+            if (doctorUser != null) {
+                hit.setDoctorName("Dr. " + doctorUser.getFirstName() + " " + doctorUser.getLastName());
+            }
+        }
+
+        List<MedicalRecordSearchResultDTO.SnippetDTO> snippets = new ArrayList<>();
+        addSnippet(snippets, "diagnosis", record.getDiagnosis(), stems);
+        addSnippet(snippets, "chiefComplaint", record.getChiefComplaint(), stems);
+        addSnippet(snippets, "symptoms", record.getSymptoms(), stems);
+        if (record.getPrescriptions() != null) {
+            record.getPrescriptions().forEach(prescription ->
+                    addSnippet(snippets, "medicationName", prescription.getMedicationName(), stems));
+        }
+        if (record.getLabTests() != null) {
+            record.getLabTests().forEach(labTest -> addSnippet(snippets, "labTests", labTest, stems));
+        }
+        addSnippet(snippets, "notes", record.getNotes(), stems);
+        hit.setSnippets(snippets);
+        return hit;
+    }
+
+    private static void addSnippet(List<MedicalRecordSearchResultDTO.SnippetDTO> snippets, String field,
+                                   String text, List<String> stems) {
+        Highlighter.Snippet snippet = Highlighter.highlight(text, stems, SNIPPET_LENGTH);
+        if (snippet != null) {
+            MedicalRecordSearchResultDTO.SnippetDTO dto = new MedicalRecordSearchResultDTO.SnippetDTO();
+            dto.setField(field);
+            dto.setText(snippet.text());
+            dto.setHighlights(snippet.highlights());
+            snippets.add(dto);
+        }
+    }
+
+    // String ids that look like ObjectIds are stored as ObjectIds inside DBRefs
+    private static Object toStoredId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
@@ -1,22 +1,25 @@
 package com.MediConnect.services;
 
 import com.MediConnect.MediConnect.dto.QueueEntryDTO;
+import com.MediConnect.cache.EntityCache;
 import com.MediConnect.dto.auth.QueueJoinRequest;
+import com.MediConnect.events.QueueChangedEvent;
 import com.MediConnect.exceptions.ResourceNotFoundException;
 import com.MediConnect.exceptions.ValidationException;
 import com.MediConnect.models.*;
-import com.MediConnect.repositories.DispensaryRepository;
-import com.MediConnect.repositories.DoctorRepository;
 import com.MediConnect.repositories.PatientRepository;
 import com.MediConnect.repositories.QueueRepository;
+import com.MediConnect.utils.ParallelLookup;
 import com.MediConnect.utils.QueueCalculator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,31 +28,49 @@ public class QueueService {
 
     private final QueueRepository queueRepository;
     private final PatientRepository patientRepository;
-    private final DoctorRepository doctorRepository;
-    private final DispensaryRepository dispensaryRepository;
     private final QueueCalculator queueCalculator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ParallelLookup parallelLookup;
+    private final EntityCache entityCache;
 
-    @Transactional
+    // Not @Transactional: the reads below run on ParallelLookup threads, outside any transaction
     public QueueEntryDTO joinQueue(String patientId, QueueJoinRequest request) {
-        Patient patient = patientRepository.findById(patientId)
+        String dispensaryId = request.getDispensaryId();
+
+        // The five reads are independent, so run them concurrently
+        CompletableFuture<Optional<Patient>> patientLookup =
+                parallelLookup.submit(() -> patientRepository.findById(patientId));
+        CompletableFuture<Optional<Dispensary>> dispensaryLookup =
+                parallelLookup.submit(() -> entityCache.findDispensary(dispensaryId));
+        CompletableFuture<Optional<Doctor>> doctorLookup = request.getDoctorId() != null
+                ? parallelLookup.submit(() -> entityCache.findDoctor(request.getDoctorId()))
+                : CompletableFuture.completedFuture(Optional.empty());
+        CompletableFuture<Optional<QueueEntry>> existingLookup = parallelLookup.submit(() -> queueRepository
+                .findByPatientIdAndDispensaryIdAndStatus(patientId, dispensaryId, QueueEntry.QueueStatus.WAITING));
+        CompletableFuture<Integer> waitingLookup = parallelLookup.submit(() ->
+                queueRepository.countByDispensaryIdAndStatus(dispensaryId, QueueEntry.QueueStatus.WAITING));
+
+        parallelLookup.awaitAll(patientLookup, dispensaryLookup, doctorLookup, existingLookup, waitingLookup);
+
+        // Checked in the original order so the first failure reported is unchanged
+        Patient patient = ParallelLookup.result(patientLookup)
                 .orElseThrow(() -> new ResourceNotFoundException("Patient not found"));
 
-        Dispensary dispensary = dispensaryRepository.findById(request.getDispensaryId())
+        Dispensary dispensary = ParallelLookup.result(dispensaryLookup)
                 .orElseThrow(() -> new ResourceNotFoundException("Dispensary not found"));
 
         Doctor doctor = null;
         if (request.getDoctorId() != null) {
-            doctor = doctorRepository.findById(request.getDoctorId())
+            doctor = ParallelLookup.result(doctorLookup)
                     .orElseThrow(() -> new ResourceNotFoundException("Doctor not found"));
         }
 
-        Optional<QueueEntry> existing = queueRepository
-                .findByPatientIdAndDispensaryIdAndStatus(patientId, dispensary.getId(), QueueEntry.QueueStatus.WAITING);
+        Optional<QueueEntry> existing = ParallelLookup.result(existingLookup);
         if (existing.isPresent()) {
             throw new ValidationException("Patient is already in the queue for this dispensary");
         }
 
-        int currentWaiting = queueRepository.countByDispensaryIdAndStatus(dispensary.getId(), QueueEntry.QueueStatus.WAITING);
+        int currentWaiting = ParallelLookup.result(waitingLookup);
 
         QueueEntry entry = new QueueEntry();
         entry.setPatient(patient);
@@ -68,7 +89,7 @@ public class QueueService {
         entry.setEstimatedCallTime(LocalDateTime.now().plusMinutes(estimatedWait));
 
         QueueEntry saved = queueRepository.save(entry);
-        return convertToDTO(saved);
+        return publishQueueChanged(saved);
     }
 
     public List<QueueEntryDTO> getQueueByDispensary(String dispensaryId) {
@@ -122,7 +143,7 @@ public class QueueService {
         }
 
         QueueEntry saved = queueRepository.save(entry);
-        return convertToDTO(saved);
+        return publishQueueChanged(saved);
     }
 
     @Transactional
@@ -130,7 +151,16 @@ public class QueueService {
         QueueEntry entry = queueRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Queue entry not found"));
         entry.cancel("Cancelled by request", "SYSTEM");
-        queueRepository.save(entry);
+        publishQueueChanged(queueRepository.save(entry));
+    }
+
+    // Subscribers are notified by DomainEventDispatcher once the change is committed
+    private QueueEntryDTO publishQueueChanged(QueueEntry entry) {
+        QueueEntryDTO dto = convertToDTO(entry);
+        if (dto.getDispensaryId() != null) {
+            eventPublisher.publishEvent(new QueueChangedEvent(dto.getDispensaryId(), dto.getDoctorId(), dto));
+        }
+        return dto;
     }
 
     private QueueEntryDTO convertToDTO(QueueEntry entry) {
@@ -0,0 +1,28 @@
+package com.MediConnect.services;
+
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+
+/**
+ * Node-local hot stream of dispensary ids whose queue has just changed.
+ * Feeds the server-sent queue streams; subscribers that fall behind simply miss
+ * ticks and pick up the latest state on the next one.
+ */
+@Component
+public class QueueUpdateNotifier {
+
+    private final Sinks.Many<String> sink = Sinks.many().multicast().directBestEffort();
+
+    public void dispensaryQueueChanged(String dispensaryId) {
+        if (dispensaryId != null) {
+            sink.emitNext(dispensaryId, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(50)));
+        }
+    }
+
+    public Flux<String> dispensaryUpdates(String dispensaryId) {
+        return sink.asFlux().filter(dispensaryId::equals);
+    }
+}
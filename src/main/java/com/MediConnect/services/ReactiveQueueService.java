@@ -0,0 +1,156 @@
+package com.MediConnect.services;
+
+import com.MediConnect.MediConnect.dto.QueueEntryDTO;
+import com.MediConnect.models.QueueEntry;
+import com.mongodb.DBRef;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Non-blocking queue reads on the reactive Mongo driver.
+ * Reactive mapping cannot resolve @DBRef fields, so entries are read as raw documents and
+ * the patient, doctor and dispensary names are resolved with one batched query per collection.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveQueueService {
+
+    private static final String QUEUE_COLLECTION = "queue_entries";
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public Flux<QueueEntryDTO> getQueueByDispensary(String dispensaryId) {
+        return findWaiting("dispensary", dispensaryId);
+    }
+
+    public Flux<QueueEntryDTO> getQueueByDoctor(String doctorId) {
+        return findWaiting("doctor", doctorId);
+    }
+
+    private Flux<QueueEntryDTO> findWaiting(String referenceField, String referenceId) {
+        Query query = new Query(Criteria.where(referenceField + ".$id").is(toStoredId(referenceId))
+                .and("status").is(QueueEntry.QueueStatus.WAITING.name()))
+                .with(Sort.by(Sort.Direction.ASC, "position"));
+
+        return reactiveMongoTemplate.find(query, Document.class, QUEUE_COLLECTION)
+                .collectList()
+                .flatMapMany(this::resolveReferences);
+    }
+
+    private Flux<QueueEntryDTO> resolveReferences(List<Document> entries) {
+        if (entries.isEmpty()) {
+            return Flux.empty();
+        }
+
+        Mono<Map<Object, String>> patientNames = findUserNames("patients", referenceIds(entries, "patient"), "");
+        Mono<Map<Object, String>> doctorNames = findUserNames("doctors", referenceIds(entries, "doctor"), "Dr. ");
+        Mono<Map<Object, String>> dispensaryNames = findByIds("dispensaries", referenceIds(entries, "dispensary"), "name")
+                .collectMap(doc -> doc.get("_id"), doc -> Objects.toString(doc.getString("name"), ""));
+
+        return Mono.zip(patientNames, doctorNames, dispensaryNames)
+                .flatMapMany(names -> Flux.fromIterable(entries)
+                        .map(entry -> convertToDTO(entry, names.getT1(), names.getT2(), names.getT3())));
+    }
+
+    /**
+     * Resolve profile id -> "First Last" through the profile's user reference
+     */
+    private Mono<Map<Object, String>> findUserNames(String profileCollection, Set<Object> profileIds, String prefix) {
+        if (profileIds.isEmpty()) {
+            return Mono.just(Collections.emptyMap());
+        }
+
+        return findByIds(profileCollection, profileIds, "user")
+                .filter(profile -> profile.get("user") instanceof DBRef)
+                .collectMap(profile -> profile.get("_id"), profile -> ((DBRef) profile.get("user")).getId())
+                .flatMap(profileToUser -> findByIds("users", new HashSet<>(profileToUser.values()), "firstName", "lastName")
+                        .collectMap(user -> user.get("_id"),
+                                user -> prefix + user.getString("firstName") + " " + user.getString("lastName"))
+                        .map(userNames -> remap(profileToUser, userNames::get)));
+    }
+
+    private Flux<Document> findByIds(String collection, Set<Object> ids, String... fields) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include(fields);
+        return reactiveMongoTemplate.find(query, Document.class, collection);
+    }
+
+    private Map<Object, String> remap(Map<Object, Object> profileToUser, Function<Object, String> userName) {
+        Map<Object, String> names = new HashMap<>();
+        profileToUser.forEach((profileId, userId) -> {
+            String name = userName.apply(userId);
+            if (name != null) {
+                names.put(profileId, name);
+            }
+        });
+        return names;
+    }
+
+    private Set<Object> referenceIds(List<Document> entries, String field) {
+        Set<Object> ids = new HashSet<>();
+        for (Document entry : entries) {
+            if (entry.get(field) instanceof DBRef ref) {
+                ids.add(ref.getId());
+            }
+        }
+        return ids;
+    }
+
+    private QueueEntryDTO convertToDTO(Document entry, Map<Object, String> patientNames,
+                                       Map<Object, String> doctorNames, Map<Object, String> dispensaryNames) {
+        QueueEntryDTO dto = new QueueEntryDTO();
+        dto.setId(idToString(entry.get("_id")));
+        dto.setQueueNumber(entry.getInteger("queueNumber"));
+        dto.setPosition(entry.getInteger("position"));
+        dto.setStatus(entry.getString("status"));
+        dto.setChiefComplaint(entry.getString("chiefComplaint"));
+        dto.setEstimatedWaitTime(entry.getInteger("estimatedWaitTime"));
+
+        Date joinedAt = entry.getDate("joinedAt");
+        if (joinedAt != null) {
+            dto.setJoinedAt(LocalDateTime.ofInstant(joinedAt.toInstant(), ZoneId.systemDefault()));
+        }
+
+        if (entry.get("patient") instanceof DBRef patient) {
+            dto.setPatientId(idToString(patient.getId()));
+            dto.setPatientName(patientNames.get(patient.getId()));
+        }
+
+        if (entry.get("doctor") instanceof DBRef doctor) {
+            dto.setDoctorId(idToString(doctor.getId()));
+            dto.setDoctorName(doctorNames.get(doctor.getId()));
+        }
+
+        if (entry.get("dispensary") instanceof DBRef dispensary) {
+            dto.setDispensaryId(idToString(dispensary.getId()));
+            dto.setDispensaryName(dispensaryNames.get(dispensary.getId()));
+        }
+
+        return dto;
+    }
+
+    // String ids that look like ObjectIds are stored as ObjectIds by the mapping layer
+    private Object toStoredId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+
+    private String idToString(Object id) {
+        return id instanceof ObjectId objectId ? objectId.toHexString() : Objects.toString(id, null);
+    }
+}
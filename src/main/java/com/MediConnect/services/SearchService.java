@@ -0,0 +1,73 @@
+package com.MediConnect.services;
+
+import com.MediConnect.MediConnect.dto.SearchHitDTO;
+import com.MediConnect.MediConnect.dto.SearchResultDTO;
+import com.MediConnect.MediConnect.dto.SuggestionDTO;
+import com.MediConnect.exceptions.ValidationException;
+import com.MediConnect.search.DirectorySearchIndex;
+import com.MediConnect.search.InvertedIndex;
+import com.MediConnect.search.SuggestionIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+
+    public static final String DISPENSARIES = "dispensaries";
+    public static final String DOCTORS = "doctors";
+    public static final int MAX_LIMIT = 100;
+
+    private final DirectorySearchIndex directorySearchIndex;
+    private final SuggestionIndex suggestionIndex;
+
+    /**
+     * Ranked dispensary or doctor matches for a free-text query, narrowed by the given facet values
+     */
+    public SearchResultDTO search(String query, String type, int limit, String city, String service,
+                                  String specialization, String language) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ValidationException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        Map<String, String> filters = new HashMap<>();
+        filters.put(DirectorySearchIndex.SPECIALIZATION, specialization);
+        InvertedIndex.Result result;
+        if (DISPENSARIES.equals(type)) {
+            filters.put(DirectorySearchIndex.CITY, city);
+            filters.put(DirectorySearchIndex.SERVICE, service);
+            result = directorySearchIndex.searchDispensaries(query, filters, limit);
+        } else if (DOCTORS.equals(type)) {
+            filters.put(DirectorySearchIndex.LANGUAGE, language);
+            result = directorySearchIndex.searchDoctors(query, filters, limit);
+        } else {
+            throw new ValidationException("Type must be '" + DISPENSARIES + "' or '" + DOCTORS + "'");
+        }
+
+        SearchResultDTO dto = new SearchResultDTO();
+        dto.setType(type);
+        dto.setQuery(query);
+        dto.setTotal(result.total());
+        dto.setHits(result.hits().stream()
+                .map(hit -> new SearchHitDTO(hit.id(), hit.title(), hit.score()))
+                .toList());
+        dto.setFacets(result.facets());
+        return dto;
+    }
+
+    /**
+     * Autocomplete suggestions for a search box prefix
+     */
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        if (limit < 1 || limit > suggestionIndex.maxK()) {
+            throw new ValidationException("Limit must be between 1 and " + suggestionIndex.maxK());
+        }
+        return suggestionIndex.suggest(prefix, limit).stream()
+                .map(suggestion -> new SuggestionDTO(suggestion.text(), suggestion.type(), suggestion.id()))
+                .toList();
+    }
+}
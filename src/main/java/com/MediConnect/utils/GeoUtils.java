@@ -0,0 +1,33 @@
+package com.MediConnect.utils;
+
+public class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    public static final double KM_PER_DEGREE_LATITUDE = Math.PI * EARTH_RADIUS_KM / 180.0;
+
+    /**
+     * Great-circle (haversine) distance in kilometres
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Half-width in degrees of longitude of a box that contains every point within radiusKm
+     * of the given latitude; 180 near the poles, where the box has to wrap the whole parallel
+     */
+    public static double longitudeSpan(double latitude, double radiusKm) {
+        double latitudeSpan = radiusKm / KM_PER_DEGREE_LATITUDE;
+        double poleward = Math.min(90.0, Math.abs(latitude) + latitudeSpan);
+        double cos = Math.cos(Math.toRadians(poleward));
+        if (poleward >= 89.0 || cos <= 0) {
+            return 180.0;
+        }
+        return Math.min(180.0, latitudeSpan / cos);
+    }
+}
@@ -0,0 +1,107 @@
+package com.MediConnect.utils;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fans independent repository reads out on a bounded I/O pool so a request waits
+ * for the slowest read instead of the sum of all of them.
+ *
+ * The pool is private on purpose: exposing it as an Executor bean would replace
+ * the application task executor used by @Async. With spring.threads.virtual.enabled=true
+ * each lookup gets a virtual thread instead, at most pool-size at a time.
+ *
+ * Lookups run on other threads, so they never take part in the caller's transaction.
+ */
+@Component
+public class ParallelLookup {
+
+    private final Executor executor;
+
+    public ParallelLookup(@Value("${mediconnect.lookup-executor.pool-size:32}") int poolSize,
+                          @Value("${mediconnect.lookup-executor.queue-capacity:1000}") int queueCapacity,
+                          Environment environment) {
+        this.executor = Threading.VIRTUAL.isActive(environment)
+                ? virtualThreadExecutor(poolSize)
+                : platformThreadExecutor(poolSize, queueCapacity);
+    }
+
+    private static Executor virtualThreadExecutor(int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("io-lookup-");
+        executor.setVirtualThreads(true);
+        // Lookups hold Mongo connections, so keep the same bound as the platform pool
+        executor.setConcurrencyLimit(concurrencyLimit);
+        return executor;
+    }
+
+    private static Executor platformThreadExecutor(int poolSize, int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "io-lookup-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // When saturated the caller performs the read itself, i.e. degrades to sequential
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Start a lookup on the I/O pool
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> lookup) {
+        return CompletableFuture.supplyAsync(lookup, executor);
+    }
+
+    /**
+     * Wait for every lookup to finish, so that no read is left running after the request fails
+     */
+    public void awaitAll(CompletableFuture<?>... lookups) {
+        try {
+            CompletableFuture.allOf(lookups).join();
+        } catch (CompletionException ignored) {
+            // failures are rethrown by result(), in the caller's order
+        }
+    }
+
+    /**
+     * Result of a completed lookup, rethrowing the original exception
+     * (e.g. ResourceNotFoundException) instead of the CompletionException wrapper
+     */
+    public static <T> T result(CompletableFuture<T> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException | CancellationException ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        } else if (executor instanceof SimpleAsyncTaskExecutor simpleAsyncTaskExecutor) {
+            simpleAsyncTaskExecutor.close();
+        }
+    }
+}
@@ -45,6 +45,29 @@ public class QueueCalculator {
         return count > 0 ? (int) (totalMinutes / count) : DEFAULT_CONSULTATION_TIME;
     }
 
+    /**
+     * Estimate how long a newcomer waits at a dispensary: the queue is served in parallel by every doctor
+     * on duty (available, or busy with a patient), each at their own average consultation speed.
+     * Returns null when no doctor is on duty.
+     */
+    public Integer estimateDispensaryWaitTime(int queueLength, List<Doctor> doctors) {
+        double patientsPerMinute = 0;
+        if (doctors != null) {
+            for (Doctor doctor : doctors) {
+                if (doctor != null && (doctor.getAvailabilityStatus() == Doctor.AvailabilityStatus.AVAILABLE
+                        || doctor.getAvailabilityStatus() == Doctor.AvailabilityStatus.BUSY)) {
+                    Integer consultationTime = doctor.getAverageConsultationTime();
+                    patientsPerMinute += 1.0 / (consultationTime != null && consultationTime > 0
+                            ? consultationTime : DEFAULT_CONSULTATION_TIME);
+                }
+            }
+        }
+        if (patientsPerMinute == 0) {
+            return null;
+        }
+        return (int) Math.ceil(Math.max(0, queueLength) / patientsPerMinute);
+    }
+
     /**
      * Calculate next queue number for a dispensary
      */
@@ -0,0 +1,92 @@
+package com.MediConnect.utils;
+
+import com.MediConnect.models.Dispensary;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * A dispensary's {@link Dispensary.WorkingHours} compiled into one bit per minute of the week
+ * (Monday 00:00 = bit 0), so "open at T" is a single bit test instead of a walk over the day schedules.
+ *
+ * As in the working-hours check it replaces, no working hours means always open, a day missing or
+ * marked closed is closed, and the closing minute is still open. Two rules differ from that check:
+ * a close time earlier than the open time now runs past midnight into the next day (it never matched),
+ * and a day marked open without times is now open all day (the check failed on the missing time).
+ */
+public final class WeeklySchedule {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    public static final WeeklySchedule ALWAYS_OPEN = new WeeklySchedule(allSet());
+
+    private final long[] minutes;
+
+    private WeeklySchedule(long[] minutes) {
+        this.minutes = minutes;
+    }
+
+    public static WeeklySchedule compile(Dispensary.WorkingHours hours) {
+        if (hours == null) {
+            return ALWAYS_OPEN;
+        }
+
+        long[] minutes = new long[(MINUTES_PER_WEEK + 63) / 64];
+        Dispensary.DaySchedule[] days = {
+                hours.getMonday(), hours.getTuesday(), hours.getWednesday(), hours.getThursday(),
+                hours.getFriday(), hours.getSaturday(), hours.getSunday()
+        };
+        for (int day = 0; day < days.length; day++) {
+            Dispensary.DaySchedule schedule = days[day];
+            if (schedule == null || !schedule.isOpen()) {
+                continue;
+            }
+
+            int dayStart = day * MINUTES_PER_DAY;
+            if (schedule.getOpenTime() == null || schedule.getCloseTime() == null) {
+                setRange(minutes, dayStart, dayStart + MINUTES_PER_DAY - 1);
+                continue;
+            }
+
+            int open = dayStart + minuteOfDay(schedule.getOpenTime());
+            int close = dayStart + minuteOfDay(schedule.getCloseTime());
+            if (close < open) {
+                close += MINUTES_PER_DAY;
+            }
+            setRange(minutes, open, close);
+        }
+        return new WeeklySchedule(minutes);
+    }
+
+    public boolean isOpenAt(LocalDateTime time) {
+        return isOpenAt(minuteOfWeek(time.getDayOfWeek(), time.toLocalTime()));
+    }
+
+    public boolean isOpenAt(int minuteOfWeek) {
+        return (minutes[minuteOfWeek >>> 6] & (1L << minuteOfWeek)) != 0;
+    }
+
+    public static int minuteOfWeek(DayOfWeek day, LocalTime time) {
+        return (day.getValue() - 1) * MINUTES_PER_DAY + minuteOfDay(time);
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    // Inclusive range; Sunday ranges running past midnight wrap to Monday
+    private static void setRange(long[] minutes, int from, int to) {
+        for (int minute = from; minute <= to; minute++) {
+            int bit = minute % MINUTES_PER_WEEK;
+            minutes[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private static long[] allSet() {
+        long[] minutes = new long[(MINUTES_PER_WEEK + 63) / 64];
+        setRange(minutes, 0, MINUTES_PER_WEEK - 1);
+        return minutes;
+    }
+}
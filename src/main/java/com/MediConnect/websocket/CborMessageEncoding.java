@@ -0,0 +1,197 @@
+package com.MediConnect.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Optional CBOR encoding of outbound STOMP messages, negotiated per session.
+ *
+ * A client opts in with the CONNECT header accept-content-type:application/cbor. Its JSON messages are
+ * then transcoded to CBOR with string references, so repeated keys and values (dispensaryName, doctorName,
+ * status...) are written once per message, and sent as binary WebSocket frames with content-type
+ * application/cbor. SockJS can only carry text, so SockJS sessions keep JSON; binary needs the native
+ * endpoint /ws/websocket. A broadcast is transcoded once and the result shared by all CBOR subscribers.
+ */
+@Component
+@Slf4j
+public class CborMessageEncoding implements ChannelInterceptor {
+
+    public static final String ACCEPT_HEADER = "accept-content-type";
+    public static final MimeType CBOR = MimeType.valueOf("application/cbor");
+
+    // Session attribute set on sessions able to receive binary frames, see decorate
+    private static final String BINARY_CAPABLE = CborMessageEncoding.class.getName() + ".binary";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final CBORFactory CBOR_FACTORY = CBORFactory.builder()
+            .enable(CBORGenerator.Feature.STRINGREF)
+            .build();
+
+    private final boolean enabled;
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+    // Keyed by payload identity: the broker hands the same payload array to every subscriber of a destination
+    private final Cache<byte[], byte[]> transcoded = Caffeine.newBuilder()
+            .weakKeys()
+            .maximumSize(1_000)
+            .build();
+    private final Counter jsonBytes;
+    private final Counter cborBytes;
+
+    public CborMessageEncoding(MeterRegistry meterRegistry,
+                               @Value("${mediconnect.websocket.cbor.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        this.jsonBytes = Counter.builder("websocket.cbor.bytes").tag("encoding", "json")
+                .description("Size of transcoded messages before and after CBOR encoding")
+                .register(meterRegistry);
+        this.cborBytes = Counter.builder("websocket.cbor.bytes").tag("encoding", "cbor")
+                .description("Size of transcoded messages before and after CBOR encoding")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Re-encode a JSON document as CBOR with a per-message string reference table
+     */
+    public static byte[] transcode(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2);
+        try (JsonParser parser = JSON_FACTORY.createParser(json);
+             JsonGenerator generator = CBOR_FACTORY.createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Session decoration applied by the broker configuration: marks native WebSocket sessions as able to
+     * receive binary frames, and sends the STOMP frames of sessions that negotiated CBOR as binary.
+     */
+    public WebSocketSession decorate(WebSocketSession session) {
+        if (!enabled || session instanceof SockJsSession) {
+            return session;
+        }
+        session.getAttributes().put(BINARY_CAPABLE, Boolean.TRUE);
+        return new WebSocketSessionDecorator(session) {
+            @Override
+            public void sendMessage(WebSocketMessage<?> message) throws IOException {
+                if (message instanceof TextMessage text && cborSessions.contains(getId())) {
+                    super.sendMessage(new BinaryMessage(text.asBytes(), text.isLast()));
+                } else {
+                    super.sendMessage(message);
+                }
+            }
+        };
+    }
+
+    /**
+     * Inbound: record the negotiation on CONNECT and forget it on DISCONNECT.
+     * Outbound: transcode the JSON messages of CBOR sessions.
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!enabled) {
+            return message;
+        }
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (type == null || sessionId == null) {
+            return message;
+        }
+        switch (type) {
+            case CONNECT -> {
+                if (acceptsCbor(message)) {
+                    cborSessions.add(sessionId);
+                }
+                return message;
+            }
+            case DISCONNECT -> {
+                cborSessions.remove(sessionId);
+                return message;
+            }
+            case MESSAGE -> {
+                return cborSessions.contains(sessionId) ? toCbor(message) : message;
+            }
+            default -> {
+                return message;
+            }
+        }
+    }
+
+    private boolean acceptsCbor(Message<?> message) {
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+        if (attributes == null || !attributes.containsKey(BINARY_CAPABLE)) {
+            return false;
+        }
+        String accept = SimpMessageHeaderAccessor.getFirstNativeHeader(ACCEPT_HEADER, message.getHeaders());
+        if (accept == null) {
+            return false;
+        }
+        for (MimeType mimeType : MimeTypeUtils.parseMimeTypes(accept)) {
+            if (CBOR.equalsTypeAndSubtype(mimeType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Message<?> toCbor(Message<?> message) {
+        Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        if (!(message.getPayload() instanceof byte[] payload) || payload.length == 0 || contentType == null
+                || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(MimeType.valueOf(contentType.toString()))) {
+            return message;
+        }
+        byte[] cbor;
+        try {
+            cbor = transcoded.get(payload, json -> {
+                byte[] encoded = transcode(json);
+                jsonBytes.increment(json.length);
+                cborBytes.increment(encoded.length);
+                return encoded;
+            });
+        } catch (UncheckedIOException ex) {
+            log.warn("Could not transcode message to CBOR, sending JSON", ex);
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setContentType(CBOR);
+        if (accessor.getFirstNativeHeader(StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER) != null) {
+            accessor.setNativeHeader(StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER, CBOR.toString());
+        }
+        accessor.removeNativeHeader(StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER);
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,264 @@
+package com.MediConnect.websocket;
+
+import com.MediConnect.MediConnect.dto.QueueDeltaDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.CursorType;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relays broker messages between application nodes through a capped Mongo collection, so a client
+ * sees changes made on any node while each node keeps its node-local simple broker.
+ *
+ * Messages this node publishes to /topic/** or /user/** are copied into the collection as they enter
+ * the broker channel. Every node tails the collection and re-publishes other nodes' messages to its
+ * local broker, marked so they are not relayed again. Tail restarts re-read a short overlap and skip
+ * ids already seen. Queue deltas from other nodes also advance the local delta sequence (see
+ * {@link QueueDeltaPublisher#followRemote}). Enabled with mediconnect.cluster-relay.enabled=true.
+ */
+@Component
+@Slf4j
+public class ClusterMessageRelay implements ChannelInterceptor {
+
+    static final String RELAYED_HEADER = "mediconnect-relayed";
+
+    private static final String ORIGIN = "origin";
+    private static final String DESTINATION = "destination";
+    private static final String CONTENT_TYPE = "contentType";
+    private static final String PAYLOAD = "payload";
+    private static final String PUBLISHED_AT = "publishedAt";
+    private static final int SEEN_IDS = 10_000;
+    private static final Duration RESTART_OVERLAP = Duration.ofSeconds(5);
+    private static final Duration RESTART_DELAY = Duration.ofSeconds(1);
+
+    private final MongoTemplate mongoTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final QueueDeltaPublisher queueDeltaPublisher;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final String collectionName;
+    private final long collectionSize;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Counter relayedOut;
+    private final Counter relayedIn;
+    private final Counter duplicates;
+    private final Counter failures;
+    private final Timer lag;
+
+    // Only touched by the tail thread
+    private final Map<ObjectId, Boolean> seen = new LinkedHashMap<>(SEEN_IDS, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ObjectId, Boolean> eldest) {
+            return size() > SEEN_IDS;
+        }
+    };
+
+    private volatile boolean running;
+    private Thread tailThread;
+
+    // Lazy: the messaging template and publisher are built by the broker configuration this relay plugs into
+    public ClusterMessageRelay(MongoTemplate mongoTemplate,
+                               @Lazy SimpMessagingTemplate messagingTemplate,
+                               @Lazy QueueDeltaPublisher queueDeltaPublisher,
+                               ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                               @Value("${mediconnect.cluster-relay.enabled:false}") boolean enabled,
+                               @Value("${mediconnect.cluster-relay.collection:broker_messages}") String collectionName,
+                               @Value("${mediconnect.cluster-relay.collection-size:64MB}") DataSize collectionSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.messagingTemplate = messagingTemplate;
+        this.queueDeltaPublisher = queueDeltaPublisher;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.collectionName = collectionName;
+        this.collectionSize = collectionSize.toBytes();
+        this.relayedOut = Counter.builder("websocket.cluster.relayed").tag("direction", "out").register(meterRegistry);
+        this.relayedIn = Counter.builder("websocket.cluster.relayed").tag("direction", "in").register(meterRegistry);
+        this.duplicates = Counter.builder("websocket.cluster.duplicates")
+                .description("Relayed messages skipped because they were already delivered")
+                .register(meterRegistry);
+        this.failures = Counter.builder("websocket.cluster.failures").register(meterRegistry);
+        this.lag = Timer.builder("websocket.cluster.lag")
+                .description("Time from publication on another node to local re-publication")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Broker channel interceptor: copy locally published messages into the relay collection
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!running || message.getHeaders().containsKey(RELAYED_HEADER)
+                || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null || !(destination.startsWith("/topic/") || destination.startsWith("/user/"))) {
+            return message;
+        }
+        try {
+            Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+            mongoTemplate.getCollection(collectionName).insertOne(new Document(ORIGIN, nodeId)
+                    .append(DESTINATION, destination)
+                    .append(CONTENT_TYPE, contentType != null ? contentType.toString() : null)
+                    .append(PAYLOAD, new Binary(payload))
+                    .append(PUBLISHED_AT, new Date()));
+            relayedOut.increment();
+        } catch (RuntimeException ex) {
+            // Local subscribers are still served; other nodes miss this message and resync on the gap
+            failures.increment();
+            log.warn("Could not relay broker message for {}", destination, ex);
+        }
+        return message;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!mongoTemplate.collectionExists(collectionName)) {
+            mongoTemplate.createCollection(collectionName, CollectionOptions.empty().capped().size(collectionSize));
+        }
+        running = true;
+        tailThread = new Thread(this::tail, "cluster-relay-tail");
+        tailThread.setDaemon(true);
+        tailThread.start();
+        log.info("Relaying broker messages through capped collection {} as node {}", collectionName, nodeId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (tailThread != null) {
+            tailThread.interrupt();
+        }
+    }
+
+    private void tail() {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(collectionName);
+        // Only messages published from now on are relayed
+        ObjectId resumeFrom = new ObjectId();
+        long lastReceived = System.currentTimeMillis();
+        while (running) {
+            try (MongoCursor<Document> cursor = collection.find(Filters.gte("_id", resumeFrom))
+                    .cursorType(CursorType.TailableAwait)
+                    .noCursorTimeout(true)
+                    .maxAwaitTime(1, TimeUnit.SECONDS)
+                    .iterator()) {
+                while (running) {
+                    Document document = cursor.tryNext();
+                    if (document == null) {
+                        if (cursor.getServerCursor() == null) {
+                            break;
+                        }
+                        continue;
+                    }
+                    receive(document);
+                    lastReceived = Math.max(lastReceived, document.getObjectId("_id").getDate().getTime());
+                }
+            } catch (RuntimeException ex) {
+                if (running) {
+                    failures.increment();
+                    log.warn("Cluster relay cursor failed, restarting", ex);
+                }
+            }
+            // Ids come from several clocks, so restart a little before the last one and rely on the seen set
+            resumeFrom = new ObjectId(new Date(lastReceived - RESTART_OVERLAP.toMillis()));
+            sleep(RESTART_DELAY);
+        }
+    }
+
+    private void receive(Document document) {
+        ObjectId id = document.getObjectId("_id");
+        if (seen.put(id, Boolean.TRUE) != null) {
+            duplicates.increment();
+            return;
+        }
+        if (nodeId.equals(document.getString(ORIGIN))) {
+            return;
+        }
+
+        String destination = document.getString(DESTINATION);
+        byte[] payload = document.get(PAYLOAD, Binary.class).getData();
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        if (document.getString(CONTENT_TYPE) != null) {
+            accessor.setContentType(MimeType.valueOf(document.getString(CONTENT_TYPE)));
+        }
+        accessor.setHeader(RELAYED_HEADER, Boolean.TRUE);
+        accessor.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+
+        if (destination.startsWith(QueueDeltaPublisher.TOPIC_PREFIX) && !destination.startsWith(QueueDeltaPublisher.TOPIC_PREFIX + "doctor/")) {
+            QueueDeltaDTO delta = readDelta(payload);
+            if (delta != null) {
+                queueDeltaPublisher.followRemote(delta, () -> messagingTemplate.send(destination, message));
+                recordReceived(document);
+                return;
+            }
+        }
+        messagingTemplate.send(destination, message);
+        recordReceived(document);
+    }
+
+    private void recordReceived(Document document) {
+        relayedIn.increment();
+        Date publishedAt = document.getDate(PUBLISHED_AT);
+        if (publishedAt != null) {
+            lag.record(Math.max(0, System.currentTimeMillis() - publishedAt.getTime()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private QueueDeltaDTO readDelta(byte[] payload) {
+        try {
+            return objectMapper.readValue(payload, QueueDeltaDTO.class);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.MediConnect.websocket;
+
+import com.MediConnect.services.QueueService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collapses bursts of queue changes into one broadcast per dispensary per window.
+ *
+ * The first change of a dispensary schedules a flush coalesce-window later; changes arriving before
+ * it are absorbed. The flush publishes the latest queue through the delta publisher, so subscribers get
+ * a single delta covering every change of the window. The queue is read under the publisher's
+ * per-dispensary lock, so two flushes of one dispensary on different scheduler threads can never
+ * publish an older read after a newer one. A window of zero publishes immediately on the calling thread.
+ */
+@Component
+@Slf4j
+public class CoalescingQueueBroadcaster {
+
+    private final QueueDeltaPublisher queueDeltaPublisher;
+    private final QueueService queueService;
+    private final long windowMillis;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final Counter published;
+    private final Counter coalesced;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public CoalescingQueueBroadcaster(QueueDeltaPublisher queueDeltaPublisher, QueueService queueService,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${mediconnect.websocket.coalesce-window:150ms}") Duration window,
+                                      @Value("${mediconnect.websocket.coalesce-threads:2}") int threads) {
+        this.queueDeltaPublisher = queueDeltaPublisher;
+        this.queueService = queueService;
+        this.windowMillis = window.toMillis();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "queue-broadcast-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.published = Counter.builder("websocket.queue.broadcasts")
+                .description("Queue deltas published after coalescing")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("websocket.queue.coalesced")
+                .description("Queue changes absorbed into an already pending broadcast")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Broadcast the dispensary's queue as it will be read at the end of the window
+     */
+    public void queueChanged(String dispensaryId) {
+        if (dispensaryId == null) {
+            return;
+        }
+        if (windowMillis <= 0) {
+            publish(dispensaryId);
+            return;
+        }
+        // Only the change that creates the pending entry schedules the flush
+        if (pending.add(dispensaryId)) {
+            scheduler.schedule(() -> flush(dispensaryId), windowMillis, TimeUnit.MILLISECONDS);
+        } else {
+            coalesced.increment();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void flush(String dispensaryId) {
+        if (pending.remove(dispensaryId)) {
+            try {
+                publish(dispensaryId);
+            } catch (RuntimeException ex) {
+                log.warn("Could not broadcast queue of dispensary {}", dispensaryId, ex);
+            }
+        }
+    }
+
+    private void publish(String dispensaryId) {
+        queueDeltaPublisher.publish(dispensaryId, () -> queueService.getQueueByDispensary(dispensaryId));
+        published.increment();
+    }
+}
@@ -0,0 +1,112 @@
+package com.MediConnect.websocket;
+
+import com.MediConnect.events.DispensaryStatusChangedEvent;
+import com.MediConnect.events.DoctorAvailabilityChangedEvent;
+import com.MediConnect.events.QueueChangedEvent;
+import com.MediConnect.services.QueueService;
+import com.MediConnect.services.QueueUpdateNotifier;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fans domain events out to STOMP topics and the server-sent queue streams, so clients no longer poll.
+ *
+ * Handlers run after the publishing transaction commits (immediately when there is none), so subscribers
+ * never see state that was rolled back. The broadcast itself is handed to one of dispatch-threads serial
+ * executors picked by dispensary (doctor for availability), so a slow broadcast never holds up the request
+ * that made the change, and the events of one dispensary or doctor go out in the order they were published.
+ */
+@Component
+@Slf4j
+public class DomainEventDispatcher {
+
+    private final CoalescingQueueBroadcaster coalescingQueueBroadcaster;
+    private final PatientPositionNotifier patientPositionNotifier;
+    private final QueueUpdateNotifier queueUpdateNotifier;
+    private final QueueSocketHandler queueSocketHandler;
+    private final QueueService queueService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ExecutorService[] stripes;
+
+    // A doctor's queue can change through events on different stripes; read and send under this lock
+    private final Map<String, Object> doctorLocks = new ConcurrentHashMap<>();
+
+    public DomainEventDispatcher(CoalescingQueueBroadcaster coalescingQueueBroadcaster,
+                                 PatientPositionNotifier patientPositionNotifier,
+                                 QueueUpdateNotifier queueUpdateNotifier, QueueSocketHandler queueSocketHandler,
+                                 QueueService queueService, SimpMessagingTemplate messagingTemplate,
+                                 @Value("${mediconnect.websocket.dispatch-threads:4}") int threads) {
+        this.coalescingQueueBroadcaster = coalescingQueueBroadcaster;
+        this.patientPositionNotifier = patientPositionNotifier;
+        this.queueUpdateNotifier = queueUpdateNotifier;
+        this.queueSocketHandler = queueSocketHandler;
+        this.queueService = queueService;
+        this.messagingTemplate = messagingTemplate;
+        this.stripes = new ExecutorService[Math.max(1, threads)];
+        for (int i = 0; i < stripes.length; i++) {
+            String name = "event-dispatch-" + (i + 1);
+            stripes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onQueueChanged(QueueChangedEvent event) {
+        dispatch(event.dispensaryId(), () -> {
+            queueUpdateNotifier.dispensaryQueueChanged(event.dispensaryId());
+            coalescingQueueBroadcaster.queueChanged(event.dispensaryId());
+            patientPositionNotifier.queueChanged(event.dispensaryId());
+            if (event.doctorId() != null) {
+                synchronized (doctorLocks.computeIfAbsent(event.doctorId(), id -> new Object())) {
+                    messagingTemplate.convertAndSend("/topic/queue/doctor/" + event.doctorId(),
+                            queueService.getQueueByDoctor(event.doctorId()));
+                }
+            }
+            if (event.entry() != null && event.entry().getPatientId() != null) {
+                queueSocketHandler.notifyPatient(event.entry().getPatientId(), event.entry());
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDoctorAvailabilityChanged(DoctorAvailabilityChangedEvent event) {
+        dispatch(event.doctorId(), () ->
+                messagingTemplate.convertAndSend("/topic/doctors/" + event.doctorId() + "/availability", event));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDispensaryStatusChanged(DispensaryStatusChangedEvent event) {
+        dispatch(event.dispensaryId(), () ->
+                messagingTemplate.convertAndSend("/topic/dispensaries/" + event.dispensaryId() + "/status", event));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService stripe : stripes) {
+            stripe.shutdown();
+        }
+    }
+
+    private void dispatch(String key, Runnable broadcast) {
+        int stripe = key == null ? 0 : Math.floorMod(key.hashCode(), stripes.length);
+        stripes[stripe].execute(() -> {
+            try {
+                broadcast.run();
+            } catch (RuntimeException e) {
+                log.warn("Broadcast for {} failed", key, e);
+            }
+        });
+    }
+}
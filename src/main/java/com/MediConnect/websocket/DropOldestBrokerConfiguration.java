@@ -0,0 +1,67 @@
+package com.MediConnect.websocket;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+/**
+ * The STOMP broker setup of @EnableWebSocketMessageBroker, except that a session whose send buffer
+ * overflows drops its oldest frames instead of being closed. A slow client then misses queue deltas,
+ * sees the sequence gap and resyncs from a snapshot, without holding unbounded memory on the server.
+ * Sessions that cannot send at all for longer than the send time limit are still closed. Sessions that
+ * negotiated CBOR get their frames as binary WebSocket messages (see {@link CborMessageEncoding}).
+ * With spring.threads.virtual.enabled=true, inbound and outbound STOMP messages are handled on virtual threads.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class DropOldestBrokerConfiguration extends DelegatingWebSocketMessageBrokerConfiguration {
+
+    private final CborMessageEncoding cborMessageEncoding;
+    private final Environment environment;
+
+    @Bean
+    @Override
+    public WebSocketHandler subProtocolWebSocketHandler(AbstractSubscribableChannel clientInboundChannel,
+                                                        AbstractSubscribableChannel clientOutboundChannel) {
+        return new SubProtocolWebSocketHandler(clientInboundChannel, clientOutboundChannel) {
+            @Override
+            protected WebSocketSession decorateSession(WebSocketSession session) {
+                return new ConcurrentWebSocketSessionDecorator(cborMessageEncoding.decorate(session), getSendTimeLimit(), getSendBufferSizeLimit(),
+                        ConcurrentWebSocketSessionDecorator.OverflowStrategy.DROP);
+            }
+        };
+    }
+
+    // ChannelRegistration only takes a ThreadPoolTaskExecutor in Spring 6.1, so the executors are replaced here
+    @Bean
+    @Override
+    public TaskExecutor clientInboundChannelExecutor() {
+        return Threading.VIRTUAL.isActive(environment)
+                ? virtualThreadExecutor("clientInboundChannel-")
+                : super.clientInboundChannelExecutor();
+    }
+
+    @Bean
+    @Override
+    public TaskExecutor clientOutboundChannelExecutor() {
+        return Threading.VIRTUAL.isActive(environment)
+                ? virtualThreadExecutor("clientOutboundChannel-")
+                : super.clientOutboundChannelExecutor();
+    }
+
+    private static TaskExecutor virtualThreadExecutor(String prefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefix);
+        executor.setVirtualThreads(true);
+        return executor;
+    }
+}
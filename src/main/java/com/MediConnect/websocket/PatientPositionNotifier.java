@@ -0,0 +1,82 @@
+package com.MediConnect.websocket;
+
+import com.MediConnect.MediConnect.dto.QueueEntryDTO;
+import com.MediConnect.MediConnect.dto.QueuePositionDTO;
+import com.MediConnect.cache.EntityCache;
+import com.MediConnect.models.Doctor;
+import com.MediConnect.services.QueueService;
+import com.MediConnect.utils.QueueCalculator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes each waiting patient their own position and estimated wait on /user/queue/position, and only when
+ * one of them changed. Kept apart from /user/queue/updates, which carries the patient's queue history list.
+ *
+ * After a queue mutation the dispensary queue is read once, positions and waits are recomputed for every
+ * waiting entry and compared with what was last pushed; just the changed entries are sent, each to its
+ * patient. The first pass for a dispensary after startup pushes everyone, since what they last saw is unknown.
+ */
+@Component
+public class PatientPositionNotifier {
+
+    public static final String DESTINATION = "/queue/position";
+
+    private final QueueService queueService;
+    private final EntityCache entityCache;
+    private final QueueCalculator queueCalculator;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final Counter pushed;
+
+    // Last pushed position of each waiting entry, per dispensary; each map is also that dispensary's lock
+    private final Map<String, Map<String, QueuePositionDTO>> lastPushed = new ConcurrentHashMap<>();
+
+    public PatientPositionNotifier(QueueService queueService, EntityCache entityCache, QueueCalculator queueCalculator,
+                                   SimpMessagingTemplate messagingTemplate, MeterRegistry meterRegistry) {
+        this.queueService = queueService;
+        this.entityCache = entityCache;
+        this.queueCalculator = queueCalculator;
+        this.messagingTemplate = messagingTemplate;
+        this.pushed = Counter.builder("websocket.queue.position-updates")
+                .description("Position updates pushed to individual patients")
+                .register(meterRegistry);
+    }
+
+    public void queueChanged(String dispensaryId) {
+        Map<String, QueuePositionDTO> previous = lastPushed.computeIfAbsent(dispensaryId, id -> new HashMap<>());
+        synchronized (previous) {
+            // Read under the lock, so a pass never overwrites a newer one with an older queue
+            List<QueueEntryDTO> queue = queueService.getQueueByDispensary(dispensaryId);
+            Map<String, Integer> consultationTimes = new HashMap<>();
+            Map<String, QueuePositionDTO> current = new HashMap<>();
+            for (int i = 0; i < queue.size(); i++) {
+                QueueEntryDTO entry = queue.get(i);
+                int position = i + 1;
+                Integer consultationTime = entry.getDoctorId() != null
+                        ? consultationTimes.computeIfAbsent(entry.getDoctorId(), this::averageConsultationTime)
+                        : null;
+                QueuePositionDTO update = new QueuePositionDTO(entry.getId(), dispensaryId, position,
+                        queueCalculator.calculateEstimatedWaitTime(position, consultationTime));
+                current.put(entry.getId(), update);
+                if (entry.getPatientId() != null && !update.equals(previous.get(entry.getId()))) {
+                    // Sent under the lock so a patient's updates arrive in order
+                    messagingTemplate.convertAndSendToUser(entry.getPatientId(), DESTINATION, update);
+                    pushed.increment();
+                }
+            }
+            previous.clear();
+            previous.putAll(current);
+        }
+    }
+
+    private Integer averageConsultationTime(String doctorId) {
+        return entityCache.findDoctor(doctorId).map(Doctor::getAverageConsultationTime).orElse(null);
+    }
+}
@@ -0,0 +1,138 @@
+package com.MediConnect.websocket;
+
+import com.MediConnect.MediConnect.dto.QueueDeltaDTO;
+import com.MediConnect.MediConnect.dto.QueueEntryDTO;
+import com.MediConnect.MediConnect.dto.QueueOpDTO;
+import com.MediConnect.MediConnect.dto.QueueSnapshotDTO;
+import com.MediConnect.services.QueueService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Versioned delta protocol for /topic/queue/{dispensaryId}.
+ *
+ * The last published queue of each dispensary is kept with a sequence number. A new queue is diffed
+ * against it and only the edit operations are broadcast, so a message is as large as the change rather
+ * than the queue. Clients start from a snapshot (SUBSCRIBE /app/queue/subscribe/{dispensaryId}) and apply
+ * deltas whose fromSequence equals their sequence; on a gap or an epoch change (server restart) they
+ * fetch a new snapshot.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueueDeltaPublisher {
+
+    public static final String TOPIC_PREFIX = "/topic/queue/";
+
+    private final QueueService queueService;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final String epoch = UUID.randomUUID().toString();
+    private final Map<String, QueueState> states = new ConcurrentHashMap<>();
+
+    private final class QueueState {
+        // Taken over from another node when its deltas are relayed here, or replaced on a conflict, see followRemote
+        private String epoch = QueueDeltaPublisher.this.epoch;
+        private long sequence;
+        private List<QueueEntryDTO> entries;
+    }
+
+    /**
+     * Current queue with the sequence it corresponds to, for a subscribing client
+     */
+    public QueueSnapshotDTO snapshot(String dispensaryId) {
+        QueueState state = state(dispensaryId);
+        synchronized (state) {
+            if (state.entries == null) {
+                state.entries = List.copyOf(queueService.getQueueByDispensary(dispensaryId));
+            }
+            return new QueueSnapshotDTO(dispensaryId, state.epoch, state.sequence, state.entries);
+        }
+    }
+
+    /**
+     * Broadcast the changes from the last published queue to the current one; nothing is sent if it is
+     * unchanged. The queue is read under the dispensary's lock, so concurrent publishers cannot send an
+     * older read after a newer one.
+     */
+    public void publish(String dispensaryId, Supplier<List<QueueEntryDTO>> currentQueue) {
+        QueueState state = state(dispensaryId);
+        synchronized (state) {
+            List<QueueEntryDTO> queue = currentQueue.get();
+            if (state.entries == null) {
+                // Nobody can hold an older version yet: this becomes the baseline
+                state.entries = List.copyOf(queue);
+                return;
+            }
+            List<QueueOpDTO> ops = QueueDiff.diff(state.entries, queue);
+            if (ops.isEmpty()) {
+                return;
+            }
+            long fromSequence = state.sequence++;
+            state.entries = List.copyOf(queue);
+            // Sent under the lock so deltas of one dispensary reach the broker in sequence order
+            messagingTemplate.convertAndSend(TOPIC_PREFIX + dispensaryId,
+                    new QueueDeltaDTO(dispensaryId, state.epoch, fromSequence, state.sequence, ops));
+        }
+    }
+
+    /**
+     * Adopt a delta published by another node, then deliver it to local subscribers under the same lock,
+     * so this node's next delta continues that sequence instead of forcing every client to resync.
+     *
+     * A delta of this node's epoch that does not continue its sequence means both nodes published from the
+     * same sequence: local clients hold this node's version under the numbers the delta builds on, so it is
+     * not delivered. The queue is re-read under a new epoch instead, announced to local clients only, which
+     * makes them fetch a new snapshot.
+     */
+    public void followRemote(QueueDeltaDTO delta, Runnable deliver) {
+        QueueState state = state(delta.getDispensaryId());
+        synchronized (state) {
+            boolean sameEpoch = state.epoch.equals(delta.getEpoch());
+            if (state.entries != null && sameEpoch && state.sequence == delta.getFromSequence()) {
+                try {
+                    state.entries = List.copyOf(QueueDiff.apply(state.entries, delta.getOps()));
+                    state.sequence = delta.getSequence();
+                    deliver.run();
+                    return;
+                } catch (IllegalArgumentException ex) {
+                    // Local copy diverged; handled as a conflict below
+                }
+            }
+            // The remote change is committed, so the stored queue is at least as new as the delta
+            List<QueueEntryDTO> entries = List.copyOf(queueService.getQueueByDispensary(delta.getDispensaryId()));
+            if (state.entries != null && sameEpoch) {
+                state.entries = entries;
+                state.epoch = UUID.randomUUID().toString();
+                state.sequence = 0;
+                sendLocally(delta.getDispensaryId(),
+                        new QueueDeltaDTO(delta.getDispensaryId(), state.epoch, 0, 0, List.of()));
+                return;
+            }
+            state.entries = entries;
+            state.epoch = delta.getEpoch();
+            state.sequence = delta.getSequence();
+            deliver.run();
+        }
+    }
+
+    // Marked as relayed, so ClusterMessageRelay does not copy it to the other nodes
+    private void sendLocally(String dispensaryId, QueueDeltaDTO delta) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setHeader(ClusterMessageRelay.RELAYED_HEADER, Boolean.TRUE);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.convertAndSend(TOPIC_PREFIX + dispensaryId, delta, accessor.getMessageHeaders());
+    }
+
+    private QueueState state(String dispensaryId) {
+        return states.computeIfAbsent(dispensaryId, id -> new QueueState());
+    }
+}
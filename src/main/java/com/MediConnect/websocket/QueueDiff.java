@@ -0,0 +1,110 @@
+package com.MediConnect.websocket;
+
+import com.MediConnect.MediConnect.dto.QueueEntryDTO;
+import com.MediConnect.MediConnect.dto.QueueOpDTO;
+
+import java.util.*;
+
+/**
+ * Computes and applies the edit operations between two versions of an ordered queue.
+ * Entries are matched by id; applying diff(before, after) to before yields after.
+ */
+public final class QueueDiff {
+
+    private QueueDiff() {
+    }
+
+    public static List<QueueOpDTO> diff(List<QueueEntryDTO> before, List<QueueEntryDTO> after) {
+        List<QueueOpDTO> ops = new ArrayList<>();
+        Set<String> afterIds = new HashSet<>();
+        after.forEach(entry -> afterIds.add(entry.getId()));
+
+        List<QueueEntryDTO> working = new ArrayList<>(before.size());
+        for (QueueEntryDTO entry : before) {
+            if (afterIds.contains(entry.getId())) {
+                working.add(entry);
+            } else {
+                ops.add(new QueueOpDTO(QueueOpDTO.Type.REMOVE, entry.getId(), null, null, null));
+            }
+        }
+
+        Map<String, QueueEntryDTO> workingById = new HashMap<>();
+        working.forEach(entry -> workingById.put(entry.getId(), entry));
+
+        for (int index = 0; index < after.size(); index++) {
+            QueueEntryDTO target = after.get(index);
+            QueueEntryDTO current = workingById.get(target.getId());
+            if (current == null) {
+                working.add(index, target);
+                ops.add(new QueueOpDTO(QueueOpDTO.Type.INSERT, null, index, null, target));
+                continue;
+            }
+            if (!working.get(index).getId().equals(target.getId())) {
+                working.remove(indexOf(working, target.getId(), index));
+                working.add(index, current);
+                ops.add(new QueueOpDTO(QueueOpDTO.Type.MOVE, target.getId(), index, null, null));
+            }
+            if (!current.equals(target)) {
+                ops.add(onlyStatusDiffers(current, target)
+                        ? new QueueOpDTO(QueueOpDTO.Type.STATUS, target.getId(), null, target.getStatus(), null)
+                        : new QueueOpDTO(QueueOpDTO.Type.UPDATE, target.getId(), null, null, target));
+            }
+        }
+        return ops;
+    }
+
+    /**
+     * The queue after applying ops to before, as a client would
+     */
+    public static List<QueueEntryDTO> apply(List<QueueEntryDTO> before, List<QueueOpDTO> ops) {
+        List<QueueEntryDTO> queue = new ArrayList<>(before);
+        for (QueueOpDTO op : ops) {
+            switch (op.getOp()) {
+                case INSERT -> queue.add(op.getIndex(), op.getEntry());
+                case REMOVE -> queue.remove(indexOf(queue, op.getId(), 0));
+                case MOVE -> queue.add(op.getIndex(), queue.remove(indexOf(queue, op.getId(), 0)));
+                case STATUS -> {
+                    int index = indexOf(queue, op.getId(), 0);
+                    QueueEntryDTO updated = copy(queue.get(index));
+                    updated.setStatus(op.getStatus());
+                    queue.set(index, updated);
+                }
+                case UPDATE -> queue.set(indexOf(queue, op.getId(), 0), op.getEntry());
+            }
+        }
+        return queue;
+    }
+
+    private static boolean onlyStatusDiffers(QueueEntryDTO current, QueueEntryDTO target) {
+        QueueEntryDTO withStatus = copy(current);
+        withStatus.setStatus(target.getStatus());
+        return withStatus.equals(target);
+    }
+
+    private static int indexOf(List<QueueEntryDTO> queue, String id, int from) {
+        for (int i = from; i < queue.size(); i++) {
+            if (queue.get(i).getId().equals(id)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Queue entry " + id + " is not in the queue");
+    }
+
+    private static QueueEntryDTO copy(QueueEntryDTO entry) {
+        QueueEntryDTO copy = new QueueEntryDTO();
+        copy.setId(entry.getId());
+        copy.setPatientId(entry.getPatientId());
+        copy.setPatientName(entry.getPatientName());
+        copy.setDoctorId(entry.getDoctorId());
+        copy.setDoctorName(entry.getDoctorName());
+        copy.setDispensaryId(entry.getDispensaryId());
+        copy.setDispensaryName(entry.getDispensaryName());
+        copy.setQueueNumber(entry.getQueueNumber());
+        copy.setPosition(entry.getPosition());
+        copy.setStatus(entry.getStatus());
+        copy.setChiefComplaint(entry.getChiefComplaint());
+        copy.setJoinedAt(entry.getJoinedAt());
+        copy.setEstimatedWaitTime(entry.getEstimatedWaitTime());
+        return copy;
+    }
+}
@@ -1,6 +1,7 @@
 package com.MediConnect.websocket;
 
 import com.MediConnect.MediConnect.dto.QueueEntryDTO;
+import com.MediConnect.MediConnect.dto.QueueSnapshotDTO;
 import com.MediConnect.services.QueueService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -8,6 +9,7 @@ import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
 import java.util.List;
@@ -19,17 +21,17 @@ public class QueueSocketHandler {
 
     private final QueueService queueService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final QueueDeltaPublisher queueDeltaPublisher;
 
     /**
-     * Subscribe to queue updates for a specific dispensary
-     * Client sends: /app/queue/subscribe/{dispensaryId}
-     * Client receives: /topic/queue/{dispensaryId}
+     * Snapshot of a dispensary queue, sent only to the subscribing session
+     * Client subscribes: /app/queue/subscribe/{dispensaryId} (again whenever it detects a gap)
+     * Client receives deltas: /topic/queue/{dispensaryId}
      */
-    @MessageMapping("/queue/subscribe/{dispensaryId}")
-    @SendTo("/topic/queue/{dispensaryId}")
-    public List<QueueEntryDTO> subscribeToDispensaryQueue(@DestinationVariable String dispensaryId) {
+    @SubscribeMapping("/queue/subscribe/{dispensaryId}")
+    public QueueSnapshotDTO subscribeToDispensaryQueue(@DestinationVariable String dispensaryId) {
         log.info("Client subscribed to dispensary queue: {}", dispensaryId);
-        return queueService.getQueueByDispensary(dispensaryId);
+        return queueDeltaPublisher.snapshot(dispensaryId);
     }
 
     /**
@@ -47,7 +49,7 @@ public class QueueSocketHandler {
     /**
      * Subscribe to personal queue updates
      * Client sends: /app/queue/patient/{patientId}
-     * Client receives: /queue/patient/{patientId}
+     * Client receives: /user/queue/updates, the history; position changes go to /user/queue/position (see PatientPositionNotifier)
      */
     @MessageMapping("/queue/patient/{patientId}")
     public void subscribeToPersonalQueue(@DestinationVariable String patientId) {
@@ -60,13 +62,6 @@ public class QueueSocketHandler {
         );
     }
 
-    /**
-     * Broadcast queue update to all subscribers
-     */
-    public void broadcastQueueUpdate(String dispensaryId, List<QueueEntryDTO> queue) {
-        messagingTemplate.convertAndSend("/topic/queue/" + dispensaryId, queue);
-    }
-
     /**
      * Send notification to specific patient
      */
@@ -0,0 +1,133 @@
+package com.MediConnect.websocket;
+
+import com.MediConnect.models.Patient;
+import com.MediConnect.models.User;
+import com.MediConnect.repositories.PatientRepository;
+import com.MediConnect.security.CustomUserDetails;
+import com.MediConnect.security.JwtTokenProvider;
+import com.MediConnect.security.PrincipalCache;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.security.Principal;
+
+/**
+ * Authenticates STOMP sessions on CONNECT and authorizes their SUBSCRIBE and SEND frames.
+ *
+ * The handshake under /ws/** stays open because browsers cannot add headers to it; the JWT travels in
+ * the CONNECT frame's Authorization header instead. It is verified once, and the resulting
+ * {@link StompPrincipal} is stored on the session, so later frames are checked against it without
+ * touching the token or the database. Sessions without a token may only subscribe to /topic/**
+ * outside /topic/queue/**, since queue entries name patients; doctor queue topics are for staff only.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompAuthInterceptor implements ChannelInterceptor {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String PATIENT_QUEUE = "/app/queue/patient/";
+    private static final String DOCTOR_QUEUE = "/app/queue/doctor/";
+    private static final String QUEUE_TOPIC = "/topic/queue/";
+    private static final String DOCTOR_QUEUE_TOPIC = "/topic/queue/doctor/";
+
+    private final JwtTokenProvider tokenProvider;
+    private final PrincipalCache principalCache;
+    private final PatientRepository patientRepository;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        switch (accessor.getCommand()) {
+            case CONNECT, STOMP -> authenticate(accessor);
+            case SUBSCRIBE -> authorizeSubscribe(accessor.getUser(), accessor.getDestination());
+            case SEND -> authorizeSend(accessor.getUser(), accessor.getDestination());
+            default -> {
+                // nothing to check
+            }
+        }
+        return message;
+    }
+
+    private void authenticate(StompHeaderAccessor accessor) {
+        String header = accessor.getFirstNativeHeader(HttpHeaders.AUTHORIZATION);
+        if (!StringUtils.hasText(header)) {
+            // Anonymous session, limited to public topics
+            return;
+        }
+        if (!header.startsWith(BEARER_PREFIX)) {
+            throw new BadCredentialsException("Invalid or expired token");
+        }
+        Claims claims = tokenProvider.verify(header.substring(BEARER_PREFIX.length()))
+                .orElseThrow(() -> new BadCredentialsException("Invalid or expired token"));
+        CustomUserDetails user = principalCache.resolve(claims);
+        if (!user.isEnabled()) {
+            throw new DisabledException("Account is deactivated");
+        }
+        String patientId = User.UserRole.PATIENT.name().equals(user.getRole())
+                ? patientRepository.findByUserId(user.getId()).map(Patient::getId).orElse(null)
+                : null;
+        accessor.setUser(new StompPrincipal(user, patientId));
+    }
+
+    private void authorizeSubscribe(Principal user, String destination) {
+        if (destination == null) {
+            throw new AccessDeniedException("Destination is required");
+        }
+        if (destination.startsWith(DOCTOR_QUEUE_TOPIC)) {
+            if (!authenticated(user).isStaff()) {
+                throw new AccessDeniedException("Doctor queues are only available to staff");
+            }
+        } else if (destination.startsWith(QUEUE_TOPIC)) {
+            authenticated(user);
+        } else if (destination.startsWith("/topic/")) {
+            // Public topics
+        } else if (destination.startsWith("/user/")) {
+            authenticated(user);
+        } else if (destination.startsWith("/app/")) {
+            authorizeApplication(authenticated(user), destination);
+        } else {
+            // Resolved user queues (/queue/...-user{session}) are only reachable through /user/
+            throw new AccessDeniedException("Cannot subscribe to " + destination);
+        }
+    }
+
+    private void authorizeSend(Principal user, String destination) {
+        // Broker destinations are written by the server only
+        if (destination == null || !destination.startsWith("/app/")) {
+            throw new AccessDeniedException("Cannot send to " + destination);
+        }
+        authorizeApplication(authenticated(user), destination);
+    }
+
+    private void authorizeApplication(StompPrincipal principal, String destination) {
+        if (destination.startsWith(PATIENT_QUEUE)) {
+            String patientId = destination.substring(PATIENT_QUEUE.length());
+            if (!principal.isStaff() && !patientId.equals(principal.patientId())) {
+                throw new AccessDeniedException("Cannot access another patient's queue");
+            }
+        } else if (destination.startsWith(DOCTOR_QUEUE) && !principal.isStaff()) {
+            throw new AccessDeniedException("Doctor queues are only available to staff");
+        }
+    }
+
+    private static StompPrincipal authenticated(Principal user) {
+        if (user instanceof StompPrincipal principal) {
+            return principal;
+        }
+        throw new AccessDeniedException("Authentication required");
+    }
+}
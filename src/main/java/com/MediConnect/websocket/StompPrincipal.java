@@ -0,0 +1,23 @@
+package com.MediConnect.websocket;
+
+import com.MediConnect.models.User;
+import com.MediConnect.security.CustomUserDetails;
+
+import java.security.Principal;
+
+/**
+ * The user of a STOMP session, resolved once at CONNECT and kept for the session's lifetime.
+ * Its name is the patient id for patients, since user destinations address patients by patient id,
+ * and the user id for everyone else.
+ */
+public record StompPrincipal(CustomUserDetails user, String patientId) implements Principal {
+
+    @Override
+    public String getName() {
+        return patientId != null ? patientId : user.getId();
+    }
+
+    public boolean isStaff() {
+        return !User.UserRole.PATIENT.name().equals(user.getRole());
+    }
+}
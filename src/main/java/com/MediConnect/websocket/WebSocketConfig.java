@@ -1,23 +1,56 @@
 package com.MediConnect.websocket;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import java.time.Duration;
+
+// The broker itself is enabled by DropOldestBrokerConfiguration
 @Configuration
-@EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final ClusterMessageRelay clusterMessageRelay;
+    private final CborMessageEncoding cborMessageEncoding;
+    private final StompAuthInterceptor stompAuthInterceptor;
+
     @Value("${websocket.allowed-origins}")
     private String[] allowedOrigins;
 
+    // Per-session outbound buffer; beyond it the oldest frames are dropped
+    @Value("${mediconnect.websocket.send-buffer-limit:256KB}")
+    private DataSize sendBufferLimit;
+
+    @Value("${mediconnect.websocket.send-time-limit:10s}")
+    private Duration sendTimeLimit;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
+        // Queue deltas must reach each session in the order they were published
+        config.setPreservePublishOrder(true);
+        // Copies messages published here to the other nodes (no-op unless the relay is enabled)
+        config.configureBrokerChannel().interceptors(clusterMessageRelay);
+    }
+
+    // Frames are authenticated and authorized first; CBOR negotiation is read from CONNECT frames
+    // and applied to the messages sent back
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthInterceptor, cborMessageEncoding);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(cborMessageEncoding);
     }
 
     @Override
@@ -26,4 +59,10 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOrigins(allowedOrigins)
                 .withSockJS();
     }
-}
\ No newline at end of file
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit((int) sendBufferLimit.toBytes());
+        registration.setSendTimeLimit((int) sendTimeLimit.toMillis());
+    }
+}
@@ -0,0 +1,125 @@
+package com.MediConnect.benchmark;
+
+import com.MediConnect.MediConnect.dto.QueueDeltaDTO;
+import com.MediConnect.MediConnect.dto.QueueEntryDTO;
+import com.MediConnect.MediConnect.dto.QueueOpDTO;
+import com.MediConnect.MediConnect.dto.QueueSnapshotDTO;
+import com.MediConnect.websocket.CborMessageEncoding;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode cost of queue messages as JSON, plain CBOR and CBOR with string references.
+ *
+ * json: what every client receives today
+ * cbor: the same object written as CBOR, keys still repeated per entry
+ * transcode: JSON re-encoded by CborMessageEncoding, as done once per broadcast for CBOR sessions
+ *
+ * Byte sizes of each encoding are printed before the run.
+ *
+ * Run with: mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * then java -cp target/classes:target/test-classes:$(cat target/cp.txt) com.MediConnect.benchmark.QueueEncodingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueueEncodingBenchmark {
+
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private static final CBORMapper CBOR = (CBORMapper) new CBORMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Param({"snapshot", "delta"})
+    public String message;
+
+    private Object payload;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws Exception {
+        payload = "snapshot".equals(message) ? snapshot(50) : delta();
+        json = JSON.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public byte[] json() throws Exception {
+        return JSON.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public byte[] cbor() throws Exception {
+        return CBOR.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public byte[] transcode() {
+        return CborMessageEncoding.transcode(json);
+    }
+
+    private static QueueSnapshotDTO snapshot(int size) {
+        List<QueueEntryDTO> entries = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            entries.add(entry(i));
+        }
+        return new QueueSnapshotDTO("65a1f0c2e4b0a1b2c3d4e5f6", "0b5c7a52-3c1e-4f6e-9a7d-2f1e8b9c0d11", 42, entries);
+    }
+
+    // A typical delta: one patient called in, the one after moves up and a new patient joins at the end
+    private static QueueDeltaDTO delta() {
+        return new QueueDeltaDTO("65a1f0c2e4b0a1b2c3d4e5f6", "0b5c7a52-3c1e-4f6e-9a7d-2f1e8b9c0d11", 42, 43, List.of(
+                new QueueOpDTO(QueueOpDTO.Type.STATUS, entry(0).getId(), null, "IN_PROGRESS", null),
+                new QueueOpDTO(QueueOpDTO.Type.UPDATE, entry(1).getId(), null, null, entry(1)),
+                new QueueOpDTO(QueueOpDTO.Type.INSERT, null, 50, null, entry(50))));
+    }
+
+    private static QueueEntryDTO entry(int i) {
+        QueueEntryDTO entry = new QueueEntryDTO();
+        entry.setId(String.format("65a1f0c2e4b0a1b2c3d4%04x", i));
+        entry.setPatientId(String.format("65a1f0c2e4b0a1b2c3d5%04x", i));
+        entry.setPatientName("Patient " + i);
+        entry.setDoctorId("65a1f0c2e4b0a1b2c3d4e501");
+        entry.setDoctorName("Dr. Amara Perera");
+        entry.setDispensaryId("65a1f0c2e4b0a1b2c3d4e5f6");
+        entry.setDispensaryName("City Care Medical Centre");
+        entry.setQueueNumber(i + 1);
+        entry.setPosition(i + 1);
+        entry.setStatus("WAITING");
+        entry.setChiefComplaint(i % 3 == 0 ? "Fever" : "Follow-up");
+        entry.setJoinedAt(LocalDateTime.of(2024, 3, 1, 9, 0).plusMinutes(i * 4L));
+        entry.setEstimatedWaitTime(i * 12);
+        return entry;
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (String message : List.of("snapshot", "delta")) {
+            Object payload = "snapshot".equals(message) ? snapshot(50) : delta();
+            byte[] json = JSON.writeValueAsBytes(payload);
+            System.out.printf("%-8s json %6d B   cbor %6d B   cbor+stringref %6d B%n", message,
+                    json.length, CBOR.writeValueAsBytes(payload).length, CborMessageEncoding.transcode(json).length);
+        }
+        Options options = new OptionsBuilder()
+                .include(QueueEncodingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
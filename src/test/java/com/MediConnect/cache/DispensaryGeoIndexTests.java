@@ -0,0 +1,108 @@
+package com.MediConnect.cache;
+
+import com.MediConnect.models.Dispensary;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DispensaryGeoIndexTests {
+
+	// Colombo Fort
+	private static final double LATITUDE = 6.9271;
+	private static final double LONGITUDE = 79.8612;
+
+	private static Dispensary dispensary(String id, double latitude, double longitude) {
+		Dispensary dispensary = new Dispensary();
+		dispensary.setId(id);
+		dispensary.setLocation(new GeoJsonPoint(longitude, latitude));
+		return dispensary;
+	}
+
+	private static List<String> ids(List<DispensaryGeoIndex.Hit> hits) {
+		return hits.stream().map(DispensaryGeoIndex.Hit::id).toList();
+	}
+
+	@Test
+	void radiusSearchReturnsNearestFirstAcrossCells() {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.find(any(Query.class), eq(Dispensary.class))).thenReturn(List.of(
+				dispensary("far", 7.2, 79.86),        // ~30 km north
+				dispensary("north", 6.97, 79.86),     // ~4.8 km, a different 0.05° cell
+				dispensary("near", 6.93, 79.862)));   // ~0.3 km
+		DispensaryGeoIndex index = new DispensaryGeoIndex(mongoTemplate, true, 0.05);
+
+		assertEquals(List.of("near", "north"), ids(index.withinRadius(LATITUDE, LONGITUDE, 10, null).orElseThrow()));
+		assertEquals(List.of("near"), ids(index.withinRadius(LATITUDE, LONGITUDE, 10, 1).orElseThrow()));
+		assertEquals(List.of("near", "north", "far"),
+				ids(index.withinRadius(LATITUDE, LONGITUDE, 50, null).orElseThrow()));
+		assertTrue(index.withinRadius(LATITUDE, LONGITUDE, 0.1, null).orElseThrow().isEmpty());
+
+		DispensaryGeoIndex.Hit near = index.withinRadius(LATITUDE, LONGITUDE, 1, null).orElseThrow().get(0);
+		assertEquals(0.3, near.distanceKm(), 0.1);
+	}
+
+	@Test
+	void nearestWidensTheSearchUntilItHoldsK() {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.find(any(Query.class), eq(Dispensary.class))).thenReturn(List.of(
+				dispensary("far", 7.2, 79.86),        // ~30 km north
+				dispensary("north", 6.97, 79.86),     // ~4.8 km
+				dispensary("near", 6.93, 79.862)));   // ~0.3 km
+		DispensaryGeoIndex index = new DispensaryGeoIndex(mongoTemplate, true, 0.05);
+
+		assertEquals(List.of("near"), ids(index.nearest(LATITUDE, LONGITUDE, 1, 50).orElseThrow()));
+		assertEquals(List.of("near", "north"), ids(index.nearest(LATITUDE, LONGITUDE, 2, 50).orElseThrow()));
+		assertEquals(List.of("near", "north"), ids(index.nearest(LATITUDE, LONGITUDE, 3, 10).orElseThrow()));
+
+		List<DispensaryGeoIndex.Hit> all = index.nearest(LATITUDE, LONGITUDE, 3, 50).orElseThrow();
+		assertEquals(List.of("near", "north", "far"), ids(all));
+		assertEquals(30.4, all.get(2).distanceKm(), 0.5);
+	}
+
+	@Test
+	void savesMoveDispensariesBetweenCells() {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		when(mongoTemplate.find(any(Query.class), eq(Dispensary.class)))
+				.thenReturn(List.of(dispensary("a", 6.93, 79.862)));
+		DispensaryGeoIndex index = new DispensaryGeoIndex(mongoTemplate, true, 0.05);
+		assertEquals(List.of("a"), ids(index.withinRadius(LATITUDE, LONGITUDE, 1, null).orElseThrow()));
+
+		index.onAfterSave(new AfterSaveEvent<>(dispensary("a", 7.2, 79.86), new Document(), "dispensaries"));
+		assertTrue(index.withinRadius(LATITUDE, LONGITUDE, 1, null).orElseThrow().isEmpty());
+		assertEquals(List.of("a"), ids(index.withinRadius(7.2, 79.86, 1, null).orElseThrow()));
+	}
+
+	@Test
+	void saveDuringLoadIsNotLost() {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		DispensaryGeoIndex index = new DispensaryGeoIndex(mongoTemplate, true, 0.05);
+		Dispensary moved = dispensary("a", 7.2, 79.86);
+		when(mongoTemplate.find(any(Query.class), eq(Dispensary.class)))
+				.thenAnswer(invocation -> {
+					// The load read the old location, then the move was saved before the load finished
+					index.onAfterSave(new AfterSaveEvent<>(moved, new Document(), "dispensaries"));
+					return List.of(dispensary("a", 6.93, 79.862));
+				})
+				.thenReturn(List.of(moved));
+
+		assertTrue(index.withinRadius(LATITUDE, LONGITUDE, 1, null).orElseThrow().isEmpty());
+		assertEquals(List.of("a"), ids(index.withinRadius(7.2, 79.86, 1, null).orElseThrow()));
+	}
+
+	@Test
+	void disabledIndexDefersToMongo() {
+		DispensaryGeoIndex index = new DispensaryGeoIndex(mock(MongoTemplate.class), false, 0.05);
+		assertTrue(index.withinRadius(LATITUDE, LONGITUDE, 10, null).isEmpty());
+	}
+}
@@ -0,0 +1,47 @@
+package com.MediConnect.cache;
+
+import com.MediConnect.models.Dispensary;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OpeningHoursIndexTests {
+
+	private static final LocalDateTime MONDAY_NOON = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+	private static Dispensary dispensary(String id, boolean open) {
+		Dispensary dispensary = new Dispensary();
+		dispensary.setId(id);
+		dispensary.setOpen(open);
+		return dispensary;
+	}
+
+	@Test
+	void saveDuringLoadIsNotLost() {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		OpeningHoursIndex index = new OpeningHoursIndex(mongoTemplate, "UTC");
+		Dispensary closed = dispensary("a", false);
+		when(mongoTemplate.find(any(Query.class), eq(Dispensary.class)))
+				.thenAnswer(invocation -> {
+					// The load read the dispensary while open, then closing it was saved before the load finished
+					index.onAfterSave(new AfterSaveEvent<>(closed, new Document(), "dispensaries"));
+					return List.of(dispensary("a", true), dispensary("b", true));
+				})
+				.thenReturn(List.of(closed));
+
+		assertEquals(Optional.of(false), index.isOpenAt("a", MONDAY_NOON));
+		assertEquals(List.of("b"), index.openAt(MONDAY_NOON, null));
+	}
+}
@@ -0,0 +1,70 @@
+package com.MediConnect.events;
+
+import com.MediConnect.models.Dispensary;
+import com.MediConnect.repositories.ChangeStreamTokenRepository;
+import com.MediConnect.repositories.DispensaryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "mediconnect.change-streams.enabled=true")
+class ChangeStreamInvalidationListenerTests {
+
+	@Autowired
+	private DispensaryRepository dispensaryRepository;
+
+	@Autowired
+	private ChangeStreamTokenRepository tokenRepository;
+
+	@Autowired
+	private RecordingListener recorder;
+
+	@Test
+	void publishesInvalidationEventAndPersistsResumeToken() throws InterruptedException {
+		Dispensary dispensary = new Dispensary();
+		dispensary.setName("Change Stream Clinic");
+		dispensary.setLicenseNumber("DISP-CS-" + System.nanoTime());
+		Dispensary saved = dispensaryRepository.save(dispensary);
+
+		EntityChangedEvent event;
+		do {
+			event = recorder.events.poll(10, TimeUnit.SECONDS);
+			assertNotNull(event, "No change event received for saved dispensary");
+		} while (event.type() != EntityChangedEvent.EntityType.DISPENSARY || !saved.getId().equals(event.id()));
+
+		assertEquals(EntityChangedEvent.ChangeType.INSERT, event.changeType());
+
+		// The token is persisted right after the event is published
+		long deadline = System.currentTimeMillis() + 5000;
+		while (tokenRepository.findById("test-node:dispensaries").isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+		assertTrue(tokenRepository.findById("test-node:dispensaries").isPresent());
+	}
+
+	@TestConfiguration
+	static class RecorderConfig {
+		@Bean
+		RecordingListener recordingListener() {
+			return new RecordingListener();
+		}
+	}
+
+	static class RecordingListener {
+		final BlockingQueue<EntityChangedEvent> events = new LinkedBlockingQueue<>();
+
+		@EventListener
+		public void on(EntityChangedEvent event) {
+			events.add(event);
+		}
+	}
+}
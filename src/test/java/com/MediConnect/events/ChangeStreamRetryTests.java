@@ -0,0 +1,42 @@
+package com.MediConnect.events;
+
+import com.MediConnect.repositories.ChangeStreamTokenRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ChangeStreamRetryTests {
+
+	@Test
+	void keepsRetryingWhileTheTokenStoreIsDown() {
+		ChangeStreamTokenRepository tokenRepository = mock(ChangeStreamTokenRepository.class);
+		ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+		DataAccessResourceFailureException outage = new DataAccessResourceFailureException("Mongo is down");
+		when(tokenRepository.findById(anyString())).thenThrow(outage);
+		doThrow(outage).when(tokenRepository).deleteById(anyString());
+
+		ChangeStreamInvalidationListener listener =
+				new ChangeStreamInvalidationListener(mock(MongoTemplate.class), tokenRepository, eventPublisher);
+		ReflectionTestUtils.setField(listener, "nodeId", "test-node");
+		ReflectionTestUtils.setField(listener, "retryInitial", Duration.ofMillis(10));
+		ReflectionTestUtils.setField(listener, "retryMax", Duration.ofMillis(20));
+
+		listener.start();
+		try {
+			// Neither the failed lookup nor the failed token delete stops the restarts
+			verify(tokenRepository, timeout(2000).atLeast(4)).findById("test-node:dispensaries");
+			verify(tokenRepository, atLeast(3)).deleteById("test-node:dispensaries");
+			verify(eventPublisher, atLeast(3))
+					.publishEvent(EntityChangedEvent.invalidateAll(EntityChangedEvent.EntityType.DISPENSARY));
+		} finally {
+			listener.stop();
+		}
+	}
+}
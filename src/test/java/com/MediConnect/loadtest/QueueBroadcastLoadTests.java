@@ -0,0 +1,479 @@
+package com.MediConnect.loadtest;
+
+import com.MediConnect.MediConnect.dto.QueueEntryDTO;
+import com.MediConnect.dto.auth.QueueJoinRequest;
+import com.MediConnect.models.Dispensary;
+import com.MediConnect.models.Patient;
+import com.MediConnect.models.User;
+import com.MediConnect.repositories.DispensaryRepository;
+import com.MediConnect.repositories.PatientRepository;
+import com.MediConnect.repositories.UserRepository;
+import com.MediConnect.security.CustomUserDetails;
+import com.MediConnect.security.JwtTokenProvider;
+import com.MediConnect.services.QueueService;
+import com.MediConnect.websocket.CborMessageEncoding;
+import com.MediConnect.websocket.QueueDeltaPublisher;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fan-out capacity of queue broadcasts on one node.
+ *
+ * Starts the application on embedded Mongo, opens loadtest.sessions STOMP sessions (all signed in as one
+ * seeded patient, since queue topics need a token) spread over loadtest.dispensaries dispensary topics, then joins and cancels queue entries at loadtest.rate per second
+ * through QueueService. Every delta received is matched to the mutation that caused it (INSERT by patient,
+ * REMOVE by entry id), giving mutation-to-delivery latency percentiles and the number of deliveries that
+ * never arrived. Heap and thread usage are sampled throughout; client and server share the JVM, so threads
+ * are also grouped by name to tell the server pools apart.
+ *
+ * Excluded from the normal build; run with:
+ *   mvn -Pload-test test -Dloadtest.sessions=5000 -Dloadtest.mutations=600 -Dloadtest.rate=20
+ * Other knobs: loadtest.dispensaries, loadtest.sockjs (false = native /ws/websocket), loadtest.cbor (needs
+ * sockjs=false), loadtest.queue-length. Server settings such as mediconnect.websocket.coalesce-window can
+ * be passed the same way to compare broker and encoding changes. Raise the open file limit for large runs.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class QueueBroadcastLoadTests {
+
+	private static final ObjectMapper JSON = new ObjectMapper();
+	private static final CBORMapper CBOR = new CBORMapper();
+	private static final long SAMPLE_INTERVAL_MILLIS = 500;
+	private static final String PROBE = "loadtestProbe";
+
+	private record Settings(int sessions, int dispensaries, int mutations, int rate, int queueLength,
+							boolean sockJs, boolean cbor, int connectConcurrency, long drainSeconds) {
+
+		static Settings fromSystemProperties() {
+			return new Settings(
+					Integer.getInteger("loadtest.sessions", 2000),
+					Integer.getInteger("loadtest.dispensaries", 20),
+					Integer.getInteger("loadtest.mutations", 400),
+					Integer.getInteger("loadtest.rate", 20),
+					Integer.getInteger("loadtest.queue-length", 15),
+					Boolean.parseBoolean(System.getProperty("loadtest.sockjs", "true")),
+					Boolean.getBoolean("loadtest.cbor"),
+					Integer.getInteger("loadtest.connect-concurrency", 200),
+					Long.getLong("loadtest.drain-seconds", 30));
+		}
+	}
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private QueueService queueService;
+
+	@Autowired
+	private DispensaryRepository dispensaryRepository;
+
+	@Autowired
+	private PatientRepository patientRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JwtTokenProvider jwtTokenProvider;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private WebSocketMessageBrokerStats brokerStats;
+
+	@Autowired
+	private SimpMessagingTemplate messagingTemplate;
+
+	@Autowired
+	private QueueDeltaPublisher queueDeltaPublisher;
+
+	// Mutation start times by the key its delta op is matched on
+	private final Map<String, Long> mutationStarts = new ConcurrentHashMap<>();
+	private final LongAdder expectedDeliveries = new LongAdder();
+	private final LongAdder unmatchedOps = new LongAdder();
+	private final LongAdder sequenceGaps = new LongAdder();
+	private final AtomicInteger subscribed = new AtomicInteger();
+	private long[] latencies;
+	private final AtomicInteger latencyCount = new AtomicInteger();
+
+	@Test
+	void broadcastsQueueChangesToManySubscribers() throws Exception {
+		Settings settings = Settings.fromSystemProperties();
+		assertFalse(settings.cbor() && settings.sockJs(), "CBOR needs the native endpoint, set -Dloadtest.sockjs=false");
+		System.out.printf("Load test: %s%n", settings);
+
+		List<String> dispensaryIds = seedDispensaries(settings.dispensaries());
+		// Deltas are only published once a baseline exists, which a client's first snapshot request creates
+		dispensaryIds.forEach(queueDeltaPublisher::snapshot);
+		Deque<String> patientIds = new ArrayDeque<>(seedPatients(settings.mutations()));
+		int[] subscribers = new int[dispensaryIds.size()];
+		for (int i = 0; i < settings.sessions(); i++) {
+			subscribers[i % dispensaryIds.size()]++;
+		}
+		latencies = new long[Math.max(1, settings.mutations() * (subscribers[0] + 1))];
+
+		ResourceSampler sampler = new ResourceSampler();
+		sampler.start();
+		ThreadPoolTaskScheduler clientScheduler = new ThreadPoolTaskScheduler();
+		clientScheduler.setPoolSize(2);
+		clientScheduler.setThreadNamePrefix("loadtest-client-");
+		clientScheduler.initialize();
+		WebSocketStompClient stompClient = stompClient(settings, clientScheduler);
+
+		List<StompSession> sessions = connect(stompClient, settings, dispensaryIds);
+		awaitSubscriptions(dispensaryIds, sessions.size());
+		System.out.printf("Connected %d sessions, heap %d MB, %d threads%n",
+				sessions.size(), sampler.heapMb(), sampler.threads());
+
+		long driveStart = System.nanoTime();
+		drive(settings, dispensaryIds, patientIds, subscribers);
+		double driveSeconds = (System.nanoTime() - driveStart) / 1e9;
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.drainSeconds());
+		while (latencyCount.get() < expectedDeliveries.sum() && System.nanoTime() < deadline) {
+			Thread.sleep(100);
+		}
+		sampler.stop();
+
+		report(settings, driveSeconds, sampler);
+
+		sessions.forEach(StompSession::disconnect);
+		stompClient.stop();
+		clientScheduler.shutdown();
+
+		assertEquals(settings.sessions(), sessions.size(), "every session should connect");
+		assertTrue(latencyCount.get() > 0, "no queue delta reached any subscriber");
+	}
+
+	private List<String> seedDispensaries(int count) {
+		List<Dispensary> dispensaries = new ArrayList<>();
+		long suffix = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			Dispensary dispensary = new Dispensary();
+			dispensary.setName("Load Test Clinic " + i);
+			dispensary.setLicenseNumber("DISP-LOAD-" + suffix + "-" + i);
+			dispensaries.add(dispensary);
+		}
+		return dispensaryRepository.saveAll(dispensaries).stream().map(Dispensary::getId).toList();
+	}
+
+	private String seedToken() {
+		User user = new User();
+		user.setEmail("loadtest-" + System.nanoTime() + "@example.com");
+		user.setRole(User.UserRole.PATIENT);
+		return jwtTokenProvider.generateToken(CustomUserDetails.create(userRepository.save(user)));
+	}
+
+	private List<String> seedPatients(int count) {
+		List<Patient> patients = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			patients.add(new Patient());
+		}
+		return patientRepository.saveAll(patients).stream().map(Patient::getId).toList();
+	}
+
+	private WebSocketStompClient stompClient(Settings settings, ThreadPoolTaskScheduler scheduler) {
+		StandardWebSocketClient webSocketClient = new StandardWebSocketClient();
+		WebSocketClient transport = settings.sockJs()
+				? new SockJsClient(List.of(new WebSocketTransport(webSocketClient)))
+				: webSocketClient;
+		WebSocketStompClient stompClient = new WebSocketStompClient(transport);
+		// Payloads are decoded by hand, by content type
+		stompClient.setMessageConverter(new ByteArrayMessageConverter());
+		stompClient.setTaskScheduler(scheduler);
+		stompClient.setDefaultHeartbeat(new long[]{0, 0});
+		stompClient.setInboundMessageSizeLimit(1024 * 1024);
+		return stompClient;
+	}
+
+	private List<StompSession> connect(WebSocketStompClient stompClient, Settings settings,
+									   List<String> dispensaryIds) throws Exception {
+		String url = settings.sockJs()
+				? "http://localhost:" + port + "/ws"
+				: "ws://localhost:" + port + "/ws/websocket";
+		StompHeaders connectHeaders = new StompHeaders();
+		connectHeaders.add(HttpHeaders.AUTHORIZATION, "Bearer " + seedToken());
+		if (settings.cbor()) {
+			connectHeaders.add(CborMessageEncoding.ACCEPT_HEADER, CborMessageEncoding.CBOR.toString());
+		}
+
+		Semaphore inFlight = new Semaphore(settings.connectConcurrency());
+		List<CompletableFuture<StompSession>> pending = new ArrayList<>();
+		for (int i = 0; i < settings.sessions(); i++) {
+			String dispensaryId = dispensaryIds.get(i % dispensaryIds.size());
+			inFlight.acquire();
+			CompletableFuture<StompSession> connected = stompClient
+					.connectAsync(url, new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() {
+					})
+					.thenApply(session -> subscribe(session, dispensaryId))
+					.whenComplete((session, ex) -> inFlight.release());
+			pending.add(connected);
+		}
+
+		List<StompSession> sessions = new ArrayList<>();
+		int failed = 0;
+		for (CompletableFuture<StompSession> future : pending) {
+			try {
+				sessions.add(future.get(60, TimeUnit.SECONDS));
+			} catch (ExecutionException | TimeoutException ex) {
+				failed++;
+			}
+		}
+		if (failed > 0) {
+			System.out.printf("%d sessions failed to connect%n", failed);
+		}
+		return sessions;
+	}
+
+	private StompSession subscribe(StompSession session, String dispensaryId) {
+		session.subscribe("/topic/queue/" + dispensaryId, new DeltaHandler());
+		return session;
+	}
+
+	/**
+	 * The simple broker sends no receipts, so probe every topic until each session has seen a probe
+	 */
+	private void awaitSubscriptions(List<String> dispensaryIds, int sessions) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (subscribed.get() < sessions && System.nanoTime() < deadline) {
+			dispensaryIds.forEach(id -> messagingTemplate.convertAndSend("/topic/queue/" + id, Map.of(PROBE, true)));
+			Thread.sleep(200);
+		}
+		System.out.printf("%d of %d sessions subscribed%n", subscribed.get(), sessions);
+	}
+
+	/**
+	 * Joins a new patient at the back of each dispensary queue and, once a queue is long enough, cancels its
+	 * oldest entry, round robin over the dispensaries at the configured rate
+	 */
+	private void drive(Settings settings, List<String> dispensaryIds, Deque<String> patientIds,
+					   int[] subscribers) throws InterruptedException {
+		Map<String, Deque<String>> waiting = new HashMap<>();
+		long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, settings.rate());
+		long start = System.nanoTime();
+		for (int i = 0; i < settings.mutations(); i++) {
+			long due = start + i * intervalNanos;
+			long delay = due - System.nanoTime();
+			if (delay > 0) {
+				TimeUnit.NANOSECONDS.sleep(delay);
+			}
+			int index = i % dispensaryIds.size();
+			String dispensaryId = dispensaryIds.get(index);
+			Deque<String> queue = waiting.computeIfAbsent(dispensaryId, id -> new ArrayDeque<>());
+			expectedDeliveries.add(subscribers[index]);
+
+			if (queue.size() >= settings.queueLength()) {
+				String entryId = queue.removeFirst();
+				mutationStarts.put("cancel:" + entryId, System.nanoTime());
+				queueService.cancelQueueEntry(entryId);
+			} else {
+				String patientId = patientIds.removeFirst();
+				QueueJoinRequest request = new QueueJoinRequest();
+				request.setDispensaryId(dispensaryId);
+				request.setChiefComplaint("Load test");
+				mutationStarts.put("join:" + patientId, System.nanoTime());
+				QueueEntryDTO entry = queueService.joinQueue(patientId, request);
+				queue.addLast(entry.getId());
+			}
+		}
+	}
+
+	private void report(Settings settings, double driveSeconds, ResourceSampler sampler) {
+		int samples = Math.min(latencyCount.get(), latencies.length);
+		long[] sorted = Arrays.copyOf(latencies, samples);
+		Arrays.sort(sorted);
+		long expected = expectedDeliveries.sum();
+
+		System.out.println();
+		System.out.printf("sessions        %d over %d dispensaries (%s, %s)%n", settings.sessions(),
+				settings.dispensaries(), settings.sockJs() ? "SockJS" : "WebSocket", settings.cbor() ? "CBOR" : "JSON");
+		System.out.printf("mutations       %d in %.1f s (%.1f/s)%n", settings.mutations(), driveSeconds,
+				settings.mutations() / driveSeconds);
+		System.out.printf("deliveries      %d of %d expected, %d missing (%.2f%%)%n", samples, expected,
+				expected - samples, expected > 0 ? 100.0 * (expected - samples) / expected : 0.0);
+		System.out.printf("sequence gaps   %d, unmatched ops %d%n", sequenceGaps.sum(), unmatchedOps.sum());
+		System.out.printf("latency p50     %.1f ms%n", percentile(sorted, 0.50));
+		System.out.printf("latency p90     %.1f ms%n", percentile(sorted, 0.90));
+		System.out.printf("latency p99     %.1f ms%n", percentile(sorted, 0.99));
+		System.out.printf("latency p99.9   %.1f ms%n", percentile(sorted, 0.999));
+		System.out.printf("latency max     %.1f ms%n", samples > 0 ? sorted[samples - 1] / 1e6 : 0.0);
+		System.out.printf("heap            %d MB peak, %d MB at end%n", sampler.peakHeapMb, sampler.heapMb());
+		System.out.printf("threads         %d peak, %d at end%n", sampler.peakThreads, sampler.threads());
+		sampler.threadGroups().forEach((name, count) -> System.out.printf("  %-28s %d%n", name, count));
+		System.out.printf("broadcasts      %.0f published, %.0f coalesced%n",
+				count("websocket.queue.broadcasts"), count("websocket.queue.coalesced"));
+		if (settings.cbor()) {
+			System.out.printf("cbor            %.0f B JSON transcoded to %.0f B%n",
+					count("websocket.cbor.bytes", "encoding", "json"), count("websocket.cbor.bytes", "encoding", "cbor"));
+		}
+		System.out.printf("broker          %s%n", brokerStats.getWebSocketSessionStatsInfo());
+		System.out.printf("outbound pool   %s%n", brokerStats.getClientOutboundExecutorStatsInfo());
+		System.out.println();
+	}
+
+	private double count(String name, String... tags) {
+		return meterRegistry.find(name).tags(tags).counters().stream().mapToDouble(Counter::count).sum();
+	}
+
+	private static double percentile(long[] sorted, double p) {
+		if (sorted.length == 0) {
+			return 0.0;
+		}
+		int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+		return sorted[Math.max(0, index)] / 1e6;
+	}
+
+	/**
+	 * Matches each op of a delta to its mutation and records the latency; one handler per session
+	 */
+	private class DeltaHandler implements StompFrameHandler {
+
+		private long sequence = -1;
+		private boolean probed;
+
+		@Override
+		public Type getPayloadType(StompHeaders headers) {
+			return byte[].class;
+		}
+
+		@Override
+		public void handleFrame(StompHeaders headers, Object payload) {
+			long received = System.nanoTime();
+			JsonNode delta;
+			try {
+				delta = CborMessageEncoding.CBOR.equalsTypeAndSubtype(headers.getContentType())
+						? CBOR.readTree((byte[]) payload)
+						: JSON.readTree((byte[]) payload);
+			} catch (IOException ex) {
+				unmatchedOps.increment();
+				return;
+			}
+			synchronized (this) {
+				if (delta.has(PROBE)) {
+					if (!probed) {
+						probed = true;
+						subscribed.incrementAndGet();
+					}
+					return;
+				}
+				if (sequence >= 0 && delta.path("fromSequence").asLong() != sequence) {
+					sequenceGaps.increment();
+				}
+				sequence = delta.path("sequence").asLong();
+			}
+			for (JsonNode op : delta.path("ops")) {
+				String key = switch (op.path("op").asText()) {
+					case "INSERT" -> "join:" + op.path("entry").path("patientId").asText();
+					case "REMOVE" -> "cancel:" + op.path("id").asText();
+					default -> null;
+				};
+				Long started = key != null ? mutationStarts.get(key) : null;
+				if (started == null) {
+					unmatchedOps.increment();
+					continue;
+				}
+				int slot = latencyCount.getAndIncrement();
+				if (slot < latencies.length) {
+					latencies[slot] = received - started;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Samples heap and thread counts of the JVM every half second
+	 */
+	private static class ResourceSampler {
+
+		private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "loadtest-sampler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		private volatile long peakHeapMb;
+		private volatile int peakThreads;
+
+		void start() {
+			executor.scheduleAtFixedRate(() -> {
+				peakHeapMb = Math.max(peakHeapMb, heapMb());
+				peakThreads = Math.max(peakThreads, threads());
+			}, 0, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+		}
+
+		void stop() {
+			executor.shutdownNow();
+		}
+
+		long heapMb() {
+			return memory.getHeapMemoryUsage().getUsed() / (1024 * 1024);
+		}
+
+		int threads() {
+			return threadBean.getThreadCount();
+		}
+
+		// Live threads by name with trailing numbers stripped, largest groups first
+		Map<String, Long> threadGroups() {
+			ThreadInfo[] infos = threadBean.getThreadInfo(threadBean.getAllThreadIds());
+			Map<String, Long> groups = Arrays.stream(infos)
+					.filter(Objects::nonNull)
+					.collect(Collectors.groupingBy(info -> info.getThreadName().replaceAll("[-_#]?\\d+$", ""),
+							Collectors.counting()));
+			AtomicLong shown = new AtomicLong();
+			Map<String, Long> top = new LinkedHashMap<>();
+			groups.entrySet().stream()
+					.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+					.limit(10)
+					.forEach(entry -> {
+						top.put(entry.getKey(), entry.getValue());
+						shown.addAndGet(entry.getValue());
+					});
+			long others = groups.values().stream().mapToLong(Long::longValue).sum() - shown.get();
+			if (others > 0) {
+				top.put("(other)", others);
+			}
+			return top;
+		}
+	}
+}
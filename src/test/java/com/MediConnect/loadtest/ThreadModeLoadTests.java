@@ -0,0 +1,198 @@
+package com.MediConnect.loadtest;
+
+import com.MediConnect.models.Dispensary;
+import com.MediConnect.repositories.DispensaryRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput and p99 latency of HTTP requests under many concurrent users, to compare platform-thread and
+ * virtual-thread mode.
+ *
+ * Starts the application on embedded Mongo, seeds loadtest.dispensaries dispensaries around Colombo and runs
+ * loadtest.users closed-loop users against loadtest.path: each sends a request, waits for the response and sends
+ * the next one. Samples from the first loadtest.warmup-seconds are discarded. A failed request is retried after a
+ * short pause, so a refusing server is not hammered. Client and server share the JVM; the client uses a small
+ * fixed pool, so the thread peak is dominated by the server.
+ *
+ * Excluded from the normal build; run once per mode and compare the reports:
+ *   mvn -Pload-test test -Dtest=ThreadModeLoadTests
+ *   mvn -Pload-test,virtual-threads test -Dtest=ThreadModeLoadTests -Dspring.profiles.active=virtual-threads
+ * Other knobs: loadtest.duration-seconds.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ThreadModeLoadTests {
+
+	private static final long RETRY_PAUSE_MILLIS = 100;
+
+	private record Settings(int users, int dispensaries, String path, long durationSeconds, long warmupSeconds) {
+
+		static Settings fromSystemProperties() {
+			return new Settings(
+					Integer.getInteger("loadtest.users", 2000),
+					Integer.getInteger("loadtest.dispensaries", 200),
+					System.getProperty("loadtest.path",
+							"/api/dispensaries/recommend?latitude=6.9271&longitude=79.8612&radiusKm=10&includeClosed=true"),
+					Long.getLong("loadtest.duration-seconds", 60),
+					Long.getLong("loadtest.warmup-seconds", 10));
+		}
+	}
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private DispensaryRepository dispensaryRepository;
+
+	@Autowired
+	private Environment environment;
+
+	private final LongAdder errors = new LongAdder();
+	private final AtomicInteger sampleCount = new AtomicInteger();
+	private final AtomicInteger peakThreads = new AtomicInteger();
+	private long[] latencies;
+
+	@Test
+	void servesManyConcurrentUsers() throws Exception {
+		Settings settings = Settings.fromSystemProperties();
+		String mode = Threading.VIRTUAL.isActive(environment) ? "virtual" : "platform";
+		System.out.printf("Thread mode load test (%s threads): %s%n", mode, settings);
+		seedDispensaries(settings.dispensaries());
+		latencies = new long[10_000_000];
+
+		ExecutorService clientExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		HttpClient client = HttpClient.newBuilder()
+				.executor(clientExecutor)
+				.connectTimeout(Duration.ofSeconds(10))
+				.build();
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + settings.path()))
+				.timeout(Duration.ofSeconds(30))
+				.GET()
+				.build();
+
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		long start = System.nanoTime();
+		long measureFrom = start + TimeUnit.SECONDS.toNanos(settings.warmupSeconds());
+		long deadline = measureFrom + TimeUnit.SECONDS.toNanos(settings.durationSeconds());
+		CountDownLatch finished = new CountDownLatch(settings.users());
+		for (int i = 0; i < settings.users(); i++) {
+			new User(client, request, measureFrom, deadline, finished).next();
+		}
+		while (!finished.await(500, TimeUnit.MILLISECONDS)) {
+			peakThreads.accumulateAndGet(threadBean.getThreadCount(), Math::max);
+		}
+		clientExecutor.shutdown();
+
+		int samples = Math.min(sampleCount.get(), latencies.length);
+		long[] sorted = Arrays.copyOf(latencies, samples);
+		Arrays.sort(sorted);
+		System.out.println();
+		System.out.printf("mode            %s threads, %d users%n", mode, settings.users());
+		System.out.printf("requests        %d in %d s (%d errors)%n", samples, settings.durationSeconds(), errors.sum());
+		System.out.printf("throughput      %.1f req/s%n", samples / (double) settings.durationSeconds());
+		System.out.printf("latency p50     %.1f ms%n", percentile(sorted, 0.50));
+		System.out.printf("latency p99     %.1f ms%n", percentile(sorted, 0.99));
+		System.out.printf("latency max     %.1f ms%n", samples > 0 ? sorted[samples - 1] / 1e6 : 0.0);
+		System.out.printf("threads         %d peak%n", peakThreads.get());
+		System.out.println();
+
+		assertTrue(samples > 0, "no request succeeded");
+	}
+
+	private void seedDispensaries(int count) {
+		List<Dispensary> dispensaries = new ArrayList<>();
+		long suffix = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			Dispensary dispensary = new Dispensary();
+			dispensary.setName("Load Test Clinic " + i);
+			dispensary.setLicenseNumber("DISP-LOAD-" + suffix + "-" + i);
+			// Spread over roughly 10 km around Colombo Fort
+			dispensary.setLocation(new GeoJsonPoint(79.8612 + (i % 20 - 10) * 0.005, 6.9271 + (i / 20 - 5) * 0.005));
+			dispensary.setOpen(true);
+			dispensaries.add(dispensary);
+		}
+		dispensaryRepository.saveAll(dispensaries);
+	}
+
+	private static double percentile(long[] sorted, double p) {
+		if (sorted.length == 0) {
+			return 0.0;
+		}
+		int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+		return sorted[Math.max(0, index)] / 1e6;
+	}
+
+	/**
+	 * One closed-loop user: the next request is sent when the previous one completed
+	 */
+	private class User {
+
+		private final HttpClient client;
+		private final HttpRequest request;
+		private final long measureFrom;
+		private final long deadline;
+		private final CountDownLatch finished;
+
+		User(HttpClient client, HttpRequest request, long measureFrom, long deadline, CountDownLatch finished) {
+			this.client = client;
+			this.request = request;
+			this.measureFrom = measureFrom;
+			this.deadline = deadline;
+			this.finished = finished;
+		}
+
+		void next() {
+			if (System.nanoTime() >= deadline) {
+				finished.countDown();
+				return;
+			}
+			long sent = System.nanoTime();
+			client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+					.whenComplete((response, error) -> {
+						boolean failed = error != null || response.statusCode() >= 400;
+						if (sent >= measureFrom) {
+							if (failed) {
+								errors.increment();
+							} else {
+								int slot = sampleCount.getAndIncrement();
+								if (slot < latencies.length) {
+									latencies[slot] = System.nanoTime() - sent;
+								}
+							}
+						}
+						if (failed) {
+							CompletableFuture.delayedExecutor(RETRY_PAUSE_MILLIS, TimeUnit.MILLISECONDS).execute(this::next);
+						} else {
+							next();
+						}
+					});
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.MediConnect.search;
+
+import com.MediConnect.models.Dispensary;
+import com.MediConnect.models.Doctor;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DirectorySearchIndexTests {
+
+	private static Dispensary dispensary(String id, String name) {
+		Dispensary dispensary = new Dispensary();
+		dispensary.setId(id);
+		dispensary.setName(name);
+		return dispensary;
+	}
+
+	private static List<String> ids(InvertedIndex.Result result) {
+		return result.hits().stream().map(InvertedIndex.Hit::id).toList();
+	}
+
+	@Test
+	void saveDuringLoadIsNotLost() {
+		MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+		DirectorySearchIndex index = new DirectorySearchIndex(mongoTemplate, true);
+		Dispensary renamed = dispensary("a", "Lakeside Clinic");
+		when(mongoTemplate.find(any(Query.class), eq(Dispensary.class))).thenAnswer(invocation -> {
+			// The load read the old name, then the rename was saved before the load finished
+			index.onAfterSave(new AfterSaveEvent<>(renamed, new Document(), "dispensaries"));
+			return List.of(dispensary("a", "Harbour Clinic"));
+		});
+		when(mongoTemplate.find(any(Query.class), eq(Doctor.class))).thenReturn(List.of());
+		when(mongoTemplate.findOne(any(Query.class), eq(Dispensary.class))).thenReturn(renamed);
+
+		assertEquals(List.of("a"), ids(index.searchDispensaries("lakeside", Map.of(), 10)));
+		assertTrue(index.searchDispensaries("harbour", Map.of(), 10).hits().isEmpty());
+	}
+}
@@ -0,0 +1,40 @@
+package com.MediConnect.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HighlighterTests {
+
+	private static List<String> marked(Highlighter.Snippet snippet) {
+		return snippet.highlights().stream().map(range -> snippet.text().substring(range[0], range[1])).toList();
+	}
+
+	@Test
+	void marksStemmedAndAccentedMatches() {
+		Highlighter.Snippet snippet = Highlighter.highlight("Persistent coughs and mild fièvre; coughing at night",
+				Highlighter.stems("coughing FIEVRE"), 160);
+
+		assertEquals("Persistent coughs and mild fièvre; coughing at night", snippet.text());
+		assertEquals(List.of("coughs", "fièvre", "coughing"), marked(snippet));
+	}
+
+	@Test
+	void cutsLongTextAroundFirstMatchOnWordBoundaries() {
+		String text = "word ".repeat(60) + "asthma exacerbation treated with salbutamol " + "filler ".repeat(60);
+		Highlighter.Snippet snippet = Highlighter.highlight(text, Highlighter.stems("asthma"), 80);
+
+		assertTrue(snippet.text().startsWith("…word "));
+		assertTrue(snippet.text().endsWith("…"));
+		assertTrue(snippet.text().length() <= 82);
+		assertEquals(List.of("asthma"), marked(snippet));
+	}
+
+	@Test
+	void noSnippetWithoutMatch() {
+		assertNull(Highlighter.highlight("Routine check-up", Highlighter.stems("diabetes"), 160));
+		assertNull(Highlighter.highlight(null, Highlighter.stems("diabetes"), 160));
+	}
+}
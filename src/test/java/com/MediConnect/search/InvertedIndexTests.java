@@ -0,0 +1,81 @@
+package com.MediConnect.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTests {
+
+	private static InvertedIndex.IndexedDocument document(String id, String name, String city, String... services) {
+		List<InvertedIndex.Field> fields = new java.util.ArrayList<>();
+		fields.add(new InvertedIndex.Field(name, 3.0f));
+		fields.add(new InvertedIndex.Field(city, 1.0f));
+		for (String service : services) {
+			fields.add(new InvertedIndex.Field(service, 1.5f));
+		}
+		return new InvertedIndex.IndexedDocument(id, name, fields, Map.of("city", List.of(city), "service", List.of(services)));
+	}
+
+	private static InvertedIndex index() {
+		InvertedIndex index = new InvertedIndex();
+		index.put(document("1", "Central Pharmacy", "Colombo", "Vaccination", "Pediatrics"));
+		index.put(document("2", "Kandy Medical Centre", "Kandy", "Pediatrics"));
+		index.put(document("3", "Pédiatrie Clinic", "Colombo", "Dental"));
+		return index;
+	}
+
+	@Test
+	void everyTermMustMatchAndPrefixesCount() {
+		InvertedIndex.Result result = index().search("pedi colombo", null, 10);
+
+		assertEquals(List.of("3", "1"), result.hits().stream().map(InvertedIndex.Hit::id).toList());
+		assertEquals(2, result.total());
+	}
+
+	@Test
+	void nameMatchesOutrankServiceMatches() {
+		InvertedIndex.Result result = index().search("pharmacy vaccination", null, 10);
+		assertEquals(List.of("1"), result.hits().stream().map(InvertedIndex.Hit::id).toList());
+
+		List<String> ranked = index().search("pediatrie", null, 10).hits().stream().map(InvertedIndex.Hit::id).toList();
+		assertEquals("3", ranked.get(0));
+	}
+
+	@Test
+	void facetsFilterAndCountAllMatches() {
+		InvertedIndex index = index();
+		InvertedIndex.Result all = index.search("pedi", null, 1);
+		assertEquals(1, all.hits().size());
+		assertEquals(3, all.total());
+		assertEquals(Map.of("Colombo", 2, "Kandy", 1), all.facets().get("city"));
+		assertEquals(Map.of("Pediatrics", 2, "Vaccination", 1, "Dental", 1), all.facets().get("service"));
+
+		InvertedIndex.Result kandy = index.search("pediatrics", Map.of("city", "KANDY"), 10);
+		assertEquals(List.of("2"), kandy.hits().stream().map(InvertedIndex.Hit::id).toList());
+	}
+
+	@Test
+	void replacedAndRemovedDocumentsLeaveNoStaleTerms() {
+		InvertedIndex index = index();
+		index.put(document("1", "Harbour Pharmacy", "Galle", "Dental"));
+		assertEquals(0, index.search("central", null, 10).total());
+		assertEquals(List.of("1"), index.search("harbour", null, 10).hits().stream().map(InvertedIndex.Hit::id).toList());
+
+		index.remove("1");
+		assertEquals(0, index.search("harbour", null, 10).total());
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	void replaceAllSwapsInTheNewDocumentsOnly() {
+		InvertedIndex index = index();
+		index.replaceAll(List.of(document("4", "Galle Family Clinic", "Galle", "Dental")));
+
+		assertEquals(1, index.size());
+		assertEquals(0, index.search("pharmacy", null, 10).total());
+		assertEquals(List.of("4"), index.search("dental", null, 10).hits().stream().map(InvertedIndex.Hit::id).toList());
+	}
+}
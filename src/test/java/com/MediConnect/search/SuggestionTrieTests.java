@@ -0,0 +1,44 @@
+package com.MediConnect.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuggestionTrieTests {
+
+	private static final SuggestionTrie TRIE = SuggestionTrie.build(List.of(
+			new SuggestionTrie.Suggestion("Central Pharmacy", "dispensary", "1", 2.0),
+			new SuggestionTrie.Suggestion("Colombo", "city", null, 5.0),
+			new SuggestionTrie.Suggestion("Cardiology", "specialization", null, 3.0),
+			new SuggestionTrie.Suggestion("John Smith", "doctor", "7", 4.0),
+			new SuggestionTrie.Suggestion("Cárdenas Clinic", "dispensary", "2", 1.0)), 3);
+
+	private static List<String> texts(String prefix, int limit) {
+		return TRIE.suggest(prefix, limit).stream().map(SuggestionTrie.Suggestion::text).toList();
+	}
+
+	@Test
+	void bestWeightedFirstAndCappedAtMaxK() {
+		assertEquals(List.of("Colombo", "Cardiology", "Central Pharmacy"), texts("c", 10));
+		assertEquals(List.of("Colombo"), texts("c", 1));
+		assertEquals(List.of("Cardiology", "Cárdenas Clinic"), texts("car", 10));
+	}
+
+	@Test
+	void matchesWordStartsIgnoringCaseAndAccents() {
+		assertEquals(List.of("John Smith"), texts("SMI", 10));
+		assertEquals(List.of("Central Pharmacy"), texts("pharm", 10));
+		assertEquals(List.of("Cárdenas Clinic"), texts("carde", 10));
+		assertEquals(List.of("Cárdenas Clinic"), texts("clin", 10));
+	}
+
+	@Test
+	void unknownOrEmptyPrefixes() {
+		assertTrue(texts("xyz", 10).isEmpty());
+		assertTrue(texts("  ", 10).isEmpty());
+		assertTrue(texts("colomboo", 10).isEmpty());
+		assertTrue(SuggestionTrie.empty().suggest("a", 5).isEmpty());
+	}
+}
@@ -0,0 +1,72 @@
+package com.MediConnect.security;
+
+import com.MediConnect.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTests {
+
+	@Test
+	void saturatedPoolFailsFastWithRetryAfter() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BlockingEncoder(started, release),
+				1, 1, Duration.ofSeconds(10), Duration.ofSeconds(3), registry);
+
+		// One task running, one queued: the pool is full
+		CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+		while (registry.get("executor.queued").tag("name", "password-hashing").gauge().value() < 1) {
+			Thread.sleep(10);
+		}
+
+		ServiceBusyException ex = assertThrows(ServiceBusyException.class, () -> encoder.matches("c", "c"));
+		assertEquals(Duration.ofSeconds(3), ex.getRetryAfter());
+		assertEquals(1.0, registry.get("password.hashing.rejected").counter().count());
+
+		release.countDown();
+		assertEquals("a", running.get(5, TimeUnit.SECONDS));
+		assertEquals("b", queued.get(5, TimeUnit.SECONDS));
+		encoder.shutdown();
+	}
+
+	@Test
+	void taskWaitingLongerThanMaxWaitIsRefused() {
+		CountDownLatch release = new CountDownLatch(1);
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BlockingEncoder(new CountDownLatch(1), release),
+				1, 4, Duration.ofMillis(100), Duration.ofSeconds(1), new SimpleMeterRegistry());
+
+		assertThrows(ServiceBusyException.class, () -> encoder.encode("slow"));
+		release.countDown();
+		encoder.shutdown();
+	}
+
+	private record BlockingEncoder(CountDownLatch started, CountDownLatch release) implements PasswordEncoder {
+
+		@Override
+		public String encode(CharSequence rawPassword) {
+			started.countDown();
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return rawPassword.toString();
+		}
+
+		@Override
+		public boolean matches(CharSequence rawPassword, String encodedPassword) {
+			return encode(rawPassword).equals(encodedPassword);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.MediConnect.services;
+
+import com.MediConnect.MediConnect.dto.DispensaryRecommendationDTO;
+import com.MediConnect.cache.DispensaryGeoIndex;
+import com.MediConnect.cache.EntityCache;
+import com.MediConnect.cache.OpeningHoursIndex;
+import com.MediConnect.models.Dispensary;
+import com.MediConnect.models.Doctor;
+import com.MediConnect.repositories.DispensaryRepository;
+import com.MediConnect.repositories.DoctorRepository;
+import com.MediConnect.repositories.QueueRepository;
+import com.MediConnect.repositories.UserRepository;
+import com.MediConnect.utils.QueueCalculator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DispensaryRecommendationTests {
+
+	private QueueRepository queueRepository;
+	private DispensaryService dispensaryService;
+
+	private static Dispensary dispensary(String id, Doctor.AvailabilityStatus doctorStatus) {
+		Doctor doctor = new Doctor();
+		doctor.setId(id + "-doctor");
+		doctor.setAvailabilityStatus(doctorStatus);
+		doctor.setAverageConsultationTime(15);
+		Dispensary dispensary = new Dispensary();
+		dispensary.setId(id);
+		dispensary.setDoctors(List.of(doctor));
+		return dispensary;
+	}
+
+	@BeforeEach
+	void setUp() {
+		DispensaryGeoIndex geoIndex = mock(DispensaryGeoIndex.class);
+		// 2 and 6 minutes away at 30 km/h
+		when(geoIndex.withinRadius(anyDouble(), anyDouble(), anyDouble(), isNull())).thenReturn(Optional.of(List.of(
+				new DispensaryGeoIndex.Hit("near", 1.0), new DispensaryGeoIndex.Hit("far", 3.0))));
+		OpeningHoursIndex openingHoursIndex = mock(OpeningHoursIndex.class);
+		when(openingHoursIndex.now()).thenReturn(LocalDateTime.of(2024, 1, 1, 12, 0));
+		when(openingHoursIndex.openAt(any(), any())).thenReturn(List.of("near", "far"));
+		EntityCache entityCache = mock(EntityCache.class);
+		// The far dispensary's only doctor is with a patient, which still counts as serving the queue
+		when(entityCache.findDispensaries(any())).thenReturn(List.of(
+				dispensary("near", Doctor.AvailabilityStatus.AVAILABLE),
+				dispensary("far", Doctor.AvailabilityStatus.BUSY)));
+		queueRepository = mock(QueueRepository.class);
+
+		dispensaryService = new DispensaryService(mock(DispensaryRepository.class), mock(DoctorRepository.class),
+				queueRepository, mock(UserRepository.class), entityCache, openingHoursIndex, geoIndex,
+				new QueueCalculator(), mock(ApplicationEventPublisher.class));
+		ReflectionTestUtils.setField(dispensaryService, "travelSpeedKmh", 30.0);
+		ReflectionTestUtils.setField(dispensaryService, "noDoctorWaitMinutes", 120);
+	}
+
+	@Test
+	void waitingPatientsChangeTheRanking() {
+		when(queueRepository.countWaitingByDispensary(any())).thenReturn(Map.of());
+		List<DispensaryRecommendationDTO> idle = dispensaryService.recommendDispensaries(6.9, 79.8, 10, 2, false);
+		assertEquals(List.of("near", "far"), ids(idle));
+		assertEquals(List.of(2, 6), idle.stream().map(DispensaryRecommendationDTO::getEstimatedTotalMinutes).toList());
+
+		// Two patients ahead at 15 minutes each outweigh 4 more minutes of travel
+		when(queueRepository.countWaitingByDispensary(any())).thenReturn(Map.of("near", 2));
+		List<DispensaryRecommendationDTO> busy = dispensaryService.recommendDispensaries(6.9, 79.8, 10, 2, false);
+		assertEquals(List.of("far", "near"), ids(busy));
+		assertEquals(2, busy.get(1).getDispensary().getCurrentQueueLength());
+		assertEquals(32, busy.get(1).getEstimatedTotalMinutes());
+	}
+
+	private static List<String> ids(List<DispensaryRecommendationDTO> recommendations) {
+		return recommendations.stream().map(recommendation -> recommendation.getDispensary().getId()).toList();
+	}
+}
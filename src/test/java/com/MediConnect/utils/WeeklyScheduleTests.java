@@ -0,0 +1,51 @@
+package com.MediConnect.utils;
+
+import com.MediConnect.models.Dispensary;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeeklyScheduleTests {
+
+	// 2024-01-01 is a Monday
+	private static final LocalDateTime MONDAY = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+	@Test
+	void openBetweenOpenAndCloseTimeInclusive() {
+		Dispensary.WorkingHours hours = new Dispensary.WorkingHours();
+		hours.setMonday(new Dispensary.DaySchedule(true, LocalTime.of(9, 0), LocalTime.of(17, 0), null));
+		WeeklySchedule schedule = WeeklySchedule.compile(hours);
+
+		assertFalse(schedule.isOpenAt(MONDAY.withHour(8).withMinute(59)));
+		assertTrue(schedule.isOpenAt(MONDAY.withHour(9)));
+		assertTrue(schedule.isOpenAt(MONDAY.withHour(17)));
+		assertFalse(schedule.isOpenAt(MONDAY.withHour(17).withMinute(1)));
+		assertFalse(schedule.isOpenAt(MONDAY.plusDays(1).withHour(10)));
+	}
+
+	@Test
+	void closedDaysAndMissingHours() {
+		Dispensary.WorkingHours hours = new Dispensary.WorkingHours();
+		hours.setMonday(new Dispensary.DaySchedule(false, LocalTime.of(9, 0), LocalTime.of(17, 0), null));
+		hours.setTuesday(new Dispensary.DaySchedule(true, null, null, null));
+		WeeklySchedule schedule = WeeklySchedule.compile(hours);
+
+		assertFalse(schedule.isOpenAt(MONDAY.withHour(10)));
+		assertTrue(schedule.isOpenAt(MONDAY.plusDays(1).withHour(3)));
+		assertTrue(WeeklySchedule.compile(null).isOpenAt(MONDAY.plusDays(6).withHour(23).withMinute(59)));
+	}
+
+	@Test
+	void overnightHoursRunIntoTheNextDayAndWrapAroundTheWeek() {
+		Dispensary.WorkingHours hours = new Dispensary.WorkingHours();
+		hours.setSunday(new Dispensary.DaySchedule(true, LocalTime.of(22, 0), LocalTime.of(2, 0), null));
+		WeeklySchedule schedule = WeeklySchedule.compile(hours);
+
+		assertTrue(schedule.isOpenAt(MONDAY.plusDays(6).withHour(23)));
+		assertTrue(schedule.isOpenAt(MONDAY.withHour(1).withMinute(30)));
+		assertFalse(schedule.isOpenAt(MONDAY.withHour(2).withMinute(1)));
+	}
+}
@@ -0,0 +1,99 @@
+package com.MediConnect.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CborMessageEncodingTests {
+
+	private static final String JSON = "{\"entries\":[" +
+			"{\"id\":\"a\",\"dispensaryName\":\"City Care\",\"status\":\"WAITING\",\"position\":1}," +
+			"{\"id\":\"b\",\"dispensaryName\":\"City Care\",\"status\":\"WAITING\",\"position\":2}," +
+			"{\"id\":\"c\",\"dispensaryName\":\"City Care\",\"status\":\"WAITING\",\"position\":3}]}";
+
+	@Test
+	void transcodedMessageDecodesToTheSameDocumentWithStringsShared() throws Exception {
+		byte[] json = JSON.getBytes(StandardCharsets.UTF_8);
+		byte[] cbor = CborMessageEncoding.transcode(json);
+
+		JsonNode expected = new ObjectMapper().readTree(json);
+		CBORMapper cborMapper = new CBORMapper();
+		assertEquals(expected, cborMapper.readTree(cbor));
+		assertTrue(cbor.length < cborMapper.writeValueAsBytes(expected).length,
+				"repeated keys and values should be written once");
+	}
+
+	@Test
+	void onlySessionsThatNegotiatedCborAreTranscoded() {
+		CborMessageEncoding encoding = new CborMessageEncoding(new SimpleMeterRegistry(), true);
+		byte[] payload = JSON.getBytes(StandardCharsets.UTF_8);
+
+		Message<?> plain = encoding.preSend(message("s1", payload), null);
+		assertSame(payload, plain.getPayload());
+
+		// CONNECT without a binary-capable transport is ignored
+		encoding.preSend(connect("s1"), null);
+		assertSame(payload, encoding.preSend(message("s1", payload), null).getPayload());
+	}
+
+	@Test
+	void negotiatedSessionGetsCborSharedAcrossSubscribers() throws Exception {
+		CborMessageEncoding encoding = new CborMessageEncoding(new SimpleMeterRegistry(), true);
+		byte[] payload = JSON.getBytes(StandardCharsets.UTF_8);
+		Map<String, Object> attributes = new HashMap<>();
+		WebSocketSession session = mock(WebSocketSession.class);
+		when(session.getAttributes()).thenReturn(attributes);
+		encoding.decorate(session);
+
+		Message<byte[]> connect = connect("s2");
+		SimpMessageHeaderAccessor.getAccessor(connect, SimpMessageHeaderAccessor.class).setSessionAttributes(attributes);
+		encoding.preSend(connect, null);
+
+		Message<?> first = encoding.preSend(message("s2", payload), null);
+		Message<?> second = encoding.preSend(message("s2", payload), null);
+		assertEquals(CborMessageEncoding.CBOR, first.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+		assertEquals(new ObjectMapper().readTree(payload), new CBORMapper().readTree((byte[]) first.getPayload()));
+		assertSame(first.getPayload(), second.getPayload());
+
+		encoding.preSend(disconnect("s2"), null);
+		assertSame(payload, encoding.preSend(message("s2", payload), null).getPayload());
+	}
+
+	private static Message<byte[]> message(String sessionId, byte[] payload) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setSessionId(sessionId);
+		accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+		return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+	}
+
+	private static Message<byte[]> disconnect(String sessionId) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.DISCONNECT);
+		accessor.setSessionId(sessionId);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+	private static Message<byte[]> connect(String sessionId) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+		accessor.setSessionId(sessionId);
+		accessor.setNativeHeader(CborMessageEncoding.ACCEPT_HEADER, "application/cbor");
+		accessor.setLeaveMutable(true);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+}
@@ -0,0 +1,67 @@
+package com.MediConnect.websocket;
+
+import com.MediConnect.MediConnect.dto.QueueEntryDTO;
+import com.MediConnect.services.QueueService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CoalescingQueueBroadcasterTests {
+
+	private static List<QueueEntryDTO> queue(String... ids) {
+		return Arrays.stream(ids).map(id -> {
+			QueueEntryDTO entry = new QueueEntryDTO();
+			entry.setId(id);
+			return entry;
+		}).toList();
+	}
+
+	@Test
+	void burstWithinWindowIsPublishedOncePerDispensary() {
+		QueueDeltaPublisher publisher = mock(QueueDeltaPublisher.class);
+		QueueService queueService = mock(QueueService.class);
+		CoalescingQueueBroadcaster broadcaster = new CoalescingQueueBroadcaster(publisher, queueService,
+				new SimpleMeterRegistry(), Duration.ofMillis(100), 1);
+
+		broadcaster.queueChanged("d1");
+		broadcaster.queueChanged("d1");
+		broadcaster.queueChanged("d2");
+		broadcaster.queueChanged("d1");
+
+		verify(publisher, timeout(2000)).publish(eq("d1"), any());
+		verify(publisher, timeout(2000)).publish(eq("d2"), any());
+		verify(publisher, after(300).times(2)).publish(anyString(), any());
+		broadcaster.stop();
+	}
+
+	@Test
+	void queueIsReadByThePublisherAtFlushTime() {
+		QueueDeltaPublisher publisher = mock(QueueDeltaPublisher.class);
+		QueueService queueService = mock(QueueService.class);
+		when(queueService.getQueueByDispensary("d1")).thenReturn(queue("c"));
+		CoalescingQueueBroadcaster broadcaster = new CoalescingQueueBroadcaster(publisher, queueService,
+				new SimpleMeterRegistry(), Duration.ofMillis(50), 1);
+
+		broadcaster.queueChanged("d1");
+		broadcaster.queueChanged("d1");
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<Supplier<List<QueueEntryDTO>>> read = ArgumentCaptor.forClass(Supplier.class);
+		verify(publisher, timeout(2000)).publish(eq("d1"), read.capture());
+		// Nothing is read until the publisher asks for it under its lock
+		verifyNoInteractions(queueService);
+		assertEquals(queue("c"), read.getValue().get());
+		broadcaster.stop();
+	}
+}
@@ -0,0 +1,59 @@
+package com.MediConnect.websocket;
+
+import com.MediConnect.MediConnect.dto.QueueEntryDTO;
+import com.MediConnect.MediConnect.dto.QueuePositionDTO;
+import com.MediConnect.cache.EntityCache;
+import com.MediConnect.services.QueueService;
+import com.MediConnect.utils.QueueCalculator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PatientPositionNotifierTests {
+
+	private static List<QueueEntryDTO> queue(String... ids) {
+		return Arrays.stream(ids).map(id -> {
+			QueueEntryDTO entry = new QueueEntryDTO();
+			entry.setId(id);
+			entry.setPatientId("patient-" + id);
+			return entry;
+		}).toList();
+	}
+
+	@Test
+	void onlyPatientsWhosePositionChangedArePushed() {
+		QueueService queueService = mock(QueueService.class);
+		SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+		PatientPositionNotifier notifier = new PatientPositionNotifier(queueService, mock(EntityCache.class),
+				new QueueCalculator(), messagingTemplate, new SimpleMeterRegistry());
+
+		when(queueService.getQueueByDispensary("d1")).thenReturn(queue("a", "b", "c"));
+		notifier.queueChanged("d1");
+		verify(messagingTemplate, times(3)).convertAndSendToUser(anyString(), eq(PatientPositionNotifier.DESTINATION), any());
+
+		// a is served: b and c move up; d joins at the back
+		clearInvocations(messagingTemplate);
+		when(queueService.getQueueByDispensary("d1")).thenReturn(queue("b", "c", "d"));
+		notifier.queueChanged("d1");
+		verify(messagingTemplate).convertAndSendToUser("patient-b", PatientPositionNotifier.DESTINATION,
+				new QueuePositionDTO("b", "d1", 1, 0));
+		verify(messagingTemplate).convertAndSendToUser("patient-c", PatientPositionNotifier.DESTINATION,
+				new QueuePositionDTO("c", "d1", 2, 15));
+		verify(messagingTemplate).convertAndSendToUser("patient-d", PatientPositionNotifier.DESTINATION,
+				new QueuePositionDTO("d", "d1", 3, 30));
+
+		// d cancels: nobody ahead of anyone moved
+		clearInvocations(messagingTemplate);
+		when(queueService.getQueueByDispensary("d1")).thenReturn(queue("b", "c"));
+		notifier.queueChanged("d1");
+		verifyNoInteractions(messagingTemplate);
+	}
+}
@@ -0,0 +1,135 @@
+package com.MediConnect.websocket;
+
+import com.MediConnect.MediConnect.dto.QueueDeltaDTO;
+import com.MediConnect.MediConnect.dto.QueueEntryDTO;
+import com.MediConnect.MediConnect.dto.QueueSnapshotDTO;
+import com.MediConnect.services.QueueService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class QueueDeltaPublisherTests {
+
+	private static final String TOPIC = QueueDeltaPublisher.TOPIC_PREFIX + "d1";
+
+	// The queue as stored in Mongo, shared by both nodes
+	private List<QueueEntryDTO> stored;
+
+	private static List<QueueEntryDTO> queue(String... ids) {
+		return Arrays.stream(ids).map(id -> {
+			QueueEntryDTO entry = new QueueEntryDTO();
+			entry.setId(id);
+			return entry;
+		}).toList();
+	}
+
+	private QueueDeltaPublisher node(SimpMessagingTemplate messagingTemplate) {
+		QueueService queueService = mock(QueueService.class);
+		when(queueService.getQueueByDispensary("d1")).thenAnswer(invocation -> stored);
+		return new QueueDeltaPublisher(queueService, messagingTemplate);
+	}
+
+	private static QueueDeltaDTO lastDelta(SimpMessagingTemplate messagingTemplate) {
+		ArgumentCaptor<QueueDeltaDTO> sent = ArgumentCaptor.forClass(QueueDeltaDTO.class);
+		verify(messagingTemplate, atLeastOnce()).convertAndSend(eq(TOPIC), sent.capture());
+		return sent.getValue();
+	}
+
+	@Test
+	void interleavedPublishersMakeClientsResyncInsteadOfApplyingAConflictingDelta() {
+		SimpMessagingTemplate templateA = mock(SimpMessagingTemplate.class);
+		SimpMessagingTemplate templateB = mock(SimpMessagingTemplate.class);
+		QueueDeltaPublisher nodeA = node(templateA);
+		QueueDeltaPublisher nodeB = node(templateB);
+
+		stored = queue("e1");
+		nodeA.snapshot("d1");
+		nodeB.snapshot("d1");
+
+		// A publishes and B follows, so both continue A's epoch at sequence 1
+		stored = queue("e1", "e2");
+		nodeA.publish("d1", () -> stored);
+		QueueDeltaDTO first = lastDelta(templateA);
+		AtomicBoolean deliveredOnB = new AtomicBoolean();
+		nodeB.followRemote(first, () -> deliveredOnB.set(true));
+		assertTrue(deliveredOnB.get());
+		assertEquals(first.getEpoch(), nodeB.snapshot("d1").getEpoch());
+		assertEquals(1, nodeB.snapshot("d1").getSequence());
+
+		// Both publish from sequence 1, each having read only its own change
+		nodeA.publish("d1", () -> queue("e1", "e2", "e3"));
+		nodeB.publish("d1", () -> queue("e1", "e2", "e4"));
+		QueueDeltaDTO fromA = lastDelta(templateA);
+		QueueDeltaDTO fromB = lastDelta(templateB);
+		assertEquals(1, fromA.getFromSequence());
+		assertEquals(1, fromB.getFromSequence());
+		stored = queue("e1", "e2", "e3", "e4");
+
+		AtomicBoolean deliveredOnA = new AtomicBoolean();
+		nodeA.followRemote(fromB, () -> deliveredOnA.set(true));
+		deliveredOnB.set(false);
+		nodeB.followRemote(fromA, () -> deliveredOnB.set(true));
+
+		// Neither conflicting delta reaches the other node's clients; each announces a new epoch locally instead
+		assertFalse(deliveredOnA.get());
+		assertFalse(deliveredOnB.get());
+		for (Map.Entry<QueueDeltaPublisher, SimpMessagingTemplate> node : Map.of(nodeA, templateA, nodeB, templateB).entrySet()) {
+			ArgumentCaptor<Object> reset = ArgumentCaptor.forClass(Object.class);
+			verify(node.getValue()).convertAndSend(eq(TOPIC), reset.capture(), anyMap());
+			QueueDeltaDTO announced = (QueueDeltaDTO) reset.getValue();
+			assertNotEquals(first.getEpoch(), announced.getEpoch());
+			assertTrue(announced.getOps().isEmpty());
+
+			QueueSnapshotDTO snapshot = node.getKey().snapshot("d1");
+			assertEquals(announced.getEpoch(), snapshot.getEpoch());
+			assertEquals(0, snapshot.getSequence());
+			assertEquals(stored, snapshot.getEntries());
+		}
+
+		// The next local change continues from the resynced queue
+		stored = new ArrayList<>(stored);
+		stored.add(queue("e5").get(0));
+		nodeA.publish("d1", () -> stored);
+		QueueDeltaDTO next = lastDelta(templateA);
+		assertEquals(nodeA.snapshot("d1").getEpoch(), next.getEpoch());
+		assertEquals(0, next.getFromSequence());
+		assertEquals(1, next.getOps().size());
+	}
+
+	@Test
+	void remoteDeltaContinuingTheSequenceIsDelivered() {
+		SimpMessagingTemplate templateA = mock(SimpMessagingTemplate.class);
+		SimpMessagingTemplate templateB = mock(SimpMessagingTemplate.class);
+		QueueDeltaPublisher nodeA = node(templateA);
+		QueueDeltaPublisher nodeB = node(templateB);
+
+		stored = queue("e1");
+		nodeA.snapshot("d1");
+		nodeB.snapshot("d1");
+		stored = queue("e1", "e2");
+		nodeA.publish("d1", () -> stored);
+		nodeB.followRemote(lastDelta(templateA), () -> { });
+
+		stored = queue("e1", "e2", "e3");
+		nodeA.publish("d1", () -> stored);
+		AtomicBoolean delivered = new AtomicBoolean();
+		nodeB.followRemote(lastDelta(templateA), () -> delivered.set(true));
+
+		assertTrue(delivered.get());
+		assertEquals(2, nodeB.snapshot("d1").getSequence());
+		assertEquals(stored, nodeB.snapshot("d1").getEntries());
+		verify(templateB, never()).convertAndSend(eq(TOPIC), any(Object.class), anyMap());
+	}
+}
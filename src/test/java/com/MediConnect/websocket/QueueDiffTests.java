@@ -0,0 +1,63 @@
+package com.MediConnect.websocket;
+
+import com.MediConnect.MediConnect.dto.QueueEntryDTO;
+import com.MediConnect.MediConnect.dto.QueueOpDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueDiffTests {
+
+	private static QueueEntryDTO entry(String id, String status, int wait) {
+		QueueEntryDTO entry = new QueueEntryDTO();
+		entry.setId(id);
+		entry.setPatientName("Patient " + id);
+		entry.setStatus(status);
+		entry.setEstimatedWaitTime(wait);
+		return entry;
+	}
+
+	@Test
+	void emitsOnlyTheChange() {
+		List<QueueEntryDTO> before = List.of(entry("a", "WAITING", 5), entry("b", "WAITING", 10), entry("c", "WAITING", 15));
+		List<QueueEntryDTO> after = List.of(entry("a", "CALLED", 5), entry("c", "WAITING", 15), entry("d", "WAITING", 20));
+
+		List<QueueOpDTO> ops = QueueDiff.diff(before, after);
+
+		assertEquals(List.of(QueueOpDTO.Type.REMOVE, QueueOpDTO.Type.STATUS, QueueOpDTO.Type.INSERT),
+				ops.stream().map(QueueOpDTO::getOp).toList());
+		assertEquals(after, QueueDiff.apply(before, ops));
+		assertTrue(QueueDiff.diff(after, after).isEmpty());
+	}
+
+	@Test
+	void applyingTheDiffReproducesRandomQueues() {
+		Random random = new Random(42);
+		for (int round = 0; round < 500; round++) {
+			List<QueueEntryDTO> before = new ArrayList<>();
+			int size = random.nextInt(12);
+			for (int i = 0; i < size; i++) {
+				before.add(entry("e" + i, "WAITING", random.nextInt(3)));
+			}
+			Collections.shuffle(before, random);
+
+			List<QueueEntryDTO> after = new ArrayList<>();
+			for (QueueEntryDTO e : before) {
+				if (random.nextInt(4) > 0) {
+					after.add(random.nextBoolean() ? e : entry(e.getId(), random.nextBoolean() ? "CALLED" : "WAITING", random.nextInt(3)));
+				}
+			}
+			for (int i = 0; i < random.nextInt(4); i++) {
+				after.add(entry("n" + round + "-" + i, "WAITING", 1));
+			}
+			Collections.shuffle(after, random);
+
+			assertEquals(after, QueueDiff.apply(before, QueueDiff.diff(before, after)));
+		}
+	}
+}
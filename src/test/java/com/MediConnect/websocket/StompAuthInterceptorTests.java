@@ -0,0 +1,120 @@
+package com.MediConnect.websocket;
+
+import com.MediConnect.models.Patient;
+import com.MediConnect.repositories.PatientRepository;
+import com.MediConnect.security.CustomUserDetails;
+import com.MediConnect.security.JwtTokenProvider;
+import com.MediConnect.security.PrincipalCache;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.security.Principal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StompAuthInterceptorTests {
+
+	private JwtTokenProvider tokenProvider;
+	private PrincipalCache principalCache;
+	private PatientRepository patientRepository;
+	private StompAuthInterceptor interceptor;
+
+	@BeforeEach
+	void setUp() {
+		tokenProvider = mock(JwtTokenProvider.class);
+		principalCache = mock(PrincipalCache.class);
+		patientRepository = mock(PatientRepository.class);
+		interceptor = new StompAuthInterceptor(tokenProvider, principalCache, patientRepository);
+	}
+
+	@Test
+	void connectResolvesPatientPrincipalOnce() {
+		Claims claims = mock(Claims.class);
+		when(tokenProvider.verify("good")).thenReturn(Optional.of(claims));
+		when(principalCache.resolve(claims)).thenReturn(new CustomUserDetails("u1", "p@example.com", null, "PATIENT", true));
+		Patient patient = new Patient();
+		patient.setId("p1");
+		when(patientRepository.findByUserId("u1")).thenReturn(Optional.of(patient));
+
+		Message<byte[]> connect = frame(StompCommand.CONNECT, null, null);
+		StompHeaderAccessor.getAccessor(connect, StompHeaderAccessor.class).setNativeHeader("Authorization", "Bearer good");
+		interceptor.preSend(connect, null);
+
+		Principal user = StompHeaderAccessor.getAccessor(connect, StompHeaderAccessor.class).getUser();
+		assertInstanceOf(StompPrincipal.class, user);
+		assertEquals("p1", user.getName());
+
+		// Later frames only look at the session principal
+		interceptor.preSend(frame(StompCommand.SEND, "/app/queue/patient/p1", user), null);
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(frame(StompCommand.SEND, "/app/queue/patient/p2", user), null));
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(frame(StompCommand.SEND, "/app/queue/doctor/d1", user), null));
+		verify(tokenProvider, times(1)).verify(anyString());
+		verify(patientRepository, times(1)).findByUserId(anyString());
+	}
+
+	@Test
+	void invalidTokenIsRejected() {
+		when(tokenProvider.verify("bad")).thenReturn(Optional.empty());
+		Message<byte[]> connect = frame(StompCommand.CONNECT, null, null);
+		StompHeaderAccessor.getAccessor(connect, StompHeaderAccessor.class).setNativeHeader("Authorization", "Bearer bad");
+
+		assertThrows(BadCredentialsException.class, () -> interceptor.preSend(connect, null));
+	}
+
+	@Test
+	void anonymousSessionsOnlyReachPublicTopics() {
+		interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/dispensaries/d1/status", null), null);
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/queue/d1", null), null));
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/queue/doctor/d1", null), null));
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/app/queue/subscribe/d1", null), null));
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/user/queue/updates", null), null));
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(frame(StompCommand.SEND, "/topic/queue/d1", null), null));
+	}
+
+	@Test
+	void doctorQueueTopicsAreStaffOnly() {
+		StompPrincipal patient = new StompPrincipal(new CustomUserDetails("u1", "p@example.com", null, "PATIENT", true), "p1");
+		StompPrincipal doctor = new StompPrincipal(new CustomUserDetails("u2", "d@example.com", null, "DOCTOR", true), null);
+
+		interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/queue/d1", patient), null);
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/queue/doctor/d1", patient), null));
+		interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/queue/doctor/d1", doctor), null);
+	}
+
+	@Test
+	void staffMayOpenAnyPatientOrDoctorQueue() {
+		StompPrincipal doctor = new StompPrincipal(new CustomUserDetails("u2", "d@example.com", null, "DOCTOR", true), null);
+
+		interceptor.preSend(frame(StompCommand.SEND, "/app/queue/patient/p1", doctor), null);
+		interceptor.preSend(frame(StompCommand.SEND, "/app/queue/doctor/d1", doctor), null);
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/queue/updates-user123", doctor), null));
+	}
+
+	private static Message<byte[]> frame(StompCommand command, String destination, Principal user) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+		if (destination != null) {
+			accessor.setDestination(destination);
+		}
+		accessor.setUser(user);
+		accessor.setLeaveMutable(true);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+}